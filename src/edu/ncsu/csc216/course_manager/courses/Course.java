@@ -3,14 +3,16 @@
  */
 package edu.ncsu.csc216.course_manager.courses;
 
-import java.util.ArrayList;
+import java.util.LinkedHashMap;
 
 import edu.ncsu.csc216.course_manager.users.Faculty;
 import edu.ncsu.csc216.course_manager.users.Student;
 import edu.ncsu.csc216.course_manager.users.User;
 
 /**
- * Course is a description of each course.
+ * Course is a description of each course.  Roster and professor changes
+ * synchronize on the Course, which is the lock CourseManager holds while
+ * enrolling students.
  * @author sarahweaver
  *
  */
@@ -36,8 +38,10 @@ public class Course implements Enrollable {
 	/** maximum credit hours */
 	public static final int MAX_HOURS = 4;
 	
-	/** Students enrolled in the course */
-	private ArrayList<User> enrolledStudents;
+	/** Students enrolled in the course by id, in the order they enrolled */
+	private LinkedHashMap<String, User> enrolledStudents;
+	/** Seats held by students who are not loaded yet */
+	private int reservedSeats;
 	
 	/**
 	 * Constructor for a course object
@@ -56,12 +60,33 @@ public class Course implements Enrollable {
 		if (capacity <= 0) {
 			throw new IllegalArgumentException();
 		}
-		enrolledStudents = new ArrayList<User>();
+		enrolledStudents = new LinkedHashMap<String, User>();
 		setName(name);
 		setCredits(credits);
 		setCapacity(capacity);
 	}
 
+	/**
+	 * Returns why the fields cannot make a Course, without throwing an
+	 * exception, so record files can be checked line by line cheaply.
+	 * @param name name of course
+	 * @param credits the course is worth
+	 * @param capacity of the course
+	 * @return the reason the fields are invalid, or null if they are valid
+	 */
+	public static String validate(String name, int credits, int capacity) {
+		if (name == null || name.length() == 0) {
+			return "missing name";
+		}
+		if (credits < MIN_HOURS || credits > MAX_HOURS) {
+			return "credits out of range";
+		}
+		if (capacity <= 0) {
+			return "capacity is not positive";
+		}
+		return null;
+	}
+
 	/**
 	 * Secondary constructor for course containing a faculty member.
 	 * @param string title of course
@@ -125,8 +150,8 @@ public class Course implements Enrollable {
 	 * @throws IllegalArgumentException if the capacity is less than 0 or 
 	 * less than the amount of enrolled students.
 	 */
-	public void setCapacity(int capacity) {
-		if (capacity <= 0 || capacity < enrolledStudents.size()) {
+	public synchronized void setCapacity(int capacity) {
+		if (capacity <= 0 || capacity < enrolledStudents.size() + reservedSeats) {
 			throw new IllegalArgumentException();
 		}
 		this.capacity = capacity;
@@ -180,17 +205,59 @@ public class Course implements Enrollable {
 	 * @param user user to enroll
 	 * @return true if user is enrolled.
 	 */
-	public boolean enroll(User user) {
-		return canEnroll(user) && enrolledStudents.add(user);
+	public synchronized boolean enroll(User user) {
+		if (!canEnroll(user)) {
+			return false;
+		}
+		enrolledStudents.put(user.getId(), user);
+		return true;
 	}
 
 	/**
-	 * Returns the enrolled students as an array.
+	 * Holds a seat for a student who is not loaded yet, if there is room.
+	 * @return true if a seat is reserved
+	 */
+	public synchronized boolean reserveSeat() {
+		if (enrolledStudents.size() + reservedSeats < capacity) {
+			reservedSeats++;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Enrolls the user in a seat held by reserveSeat().
+	 * @param user user to enroll
+	 * @return true if the user is enrolled
+	 */
+	public synchronized boolean enrollReserved(User user) {
+		if (reservedSeats == 0 || !(user instanceof Student) || enrolledStudents.containsKey(user.getId())) {
+			return false;
+		}
+		reservedSeats--;
+		enrolledStudents.put(user.getId(), user);
+		return true;
+	}
+
+	/**
+	 * Returns the enrolled students as an array.  Students holding a
+	 * reserved seat are not included until they are enrolled, so the
+	 * array may be shorter than getEnrolledCount() while students are
+	 * loaded lazily.  Use CourseManager.getRoster() for the full roster.
 	 * @return enrolled students
 	 */
-	public Student [] getEnrolledStudents() {
+	public synchronized Student [] getEnrolledStudents() {
 		Student [] s = new Student[enrolledStudents.size()];
-		return enrolledStudents.toArray(s);
+		return enrolledStudents.values().toArray(s);
+	}
+
+	/**
+	 * Returns the number of students enrolled in the course, including
+	 * students holding a reserved seat.
+	 * @return number of enrolled students
+	 */
+	public synchronized int getEnrolledCount() {
+		return enrolledStudents.size() + reservedSeats;
 	}
 
 	/**
@@ -199,36 +266,39 @@ public class Course implements Enrollable {
 	 * @param user User to add to the course
 	 * @return true if there is capacity
 	 */
-	public boolean canEnroll(User user) {
-		if (enrolledStudents.size() < capacity) {
-			if (user instanceof Student) {
-				Student s = (Student) user;
-				for (int i = 0; i < enrolledStudents.size(); i++) {
-					if (enrolledStudents.get(i).equals(s)) {
-						return false;
-					}
-				}
-				return true;
-			}
-			return false;
+	public synchronized boolean canEnroll(User user) {
+		if (enrolledStudents.size() + reservedSeats < capacity && user instanceof Student) {
+			return !enrolledStudents.containsKey(user.getId());
 		}
 		return false;
 	}
 
+	/**
+	 * Returns true if the user is on the course's roster.
+	 * @param user user to look for
+	 * @return true if the user is enrolled
+	 */
+	public synchronized boolean isEnrolled(User user) {
+		return user != null && user.equals(enrolledStudents.get(user.getId()));
+	}
+
 	/**
 	 * Drops the student from the course.
 	 * @param user student to drop
 	 * @return true if the student is dropped
 	 */
-	public boolean drop(User user) {
-		return enrolledStudents.remove(user);
+	public synchronized boolean drop(User user) {
+		if (user == null) {
+			return false;
+		}
+		return enrolledStudents.remove(user.getId(), user);
 	}
 
 	/**
 	 * Determines whether a faculty member can be added
 	 * @return true if a faculty member can be added
 	 */
-	public boolean canAddFaculty() {
+	public synchronized boolean canAddFaculty() {
 		if (this.professor == null) {
 			return true;
 		}
@@ -240,7 +310,7 @@ public class Course implements Enrollable {
 	 * @param faculty faculty member.
 	 * @return true if the member is added
 	 */
-	public boolean addFaculty(Faculty faculty) {
+	public synchronized boolean addFaculty(Faculty faculty) {
 		if (!canAddFaculty()) {
 			return false;
 		}
@@ -251,7 +321,7 @@ public class Course implements Enrollable {
 	/**
 	 * Removes a faculty member.
 	 */
-	public void removeFaculty() {
+	public synchronized void removeFaculty() {
 		this.professor = null;
 	}
 	
@@ -259,7 +329,7 @@ public class Course implements Enrollable {
 	 * Returns the faculty member instance variable value.
 	 * @return this.professor
 	 */
-	public Faculty getFaculty() {
+	public synchronized Faculty getFaculty() {
 		return this.professor;
 	}
 	
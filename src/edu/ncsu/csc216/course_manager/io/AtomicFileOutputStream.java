@@ -0,0 +1,135 @@
+package edu.ncsu.csc216.course_manager.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Writes a file by writing a temporary file in the same directory and
+ * renaming it over the file when the stream is closed.  Readers of the
+ * file see either the old contents or the new contents, never part of a
+ * write.  If the write fails, abort() deletes the temporary file and the
+ * original file is left as it was.
+ * @author sarahweaver
+ *
+ */
+class AtomicFileOutputStream extends FilterOutputStream {
+	/** File being replaced */
+	private final File target;
+	/** Temporary file being written */
+	private final File temp;
+	/** Stream for the temporary file */
+	private final FileOutputStream file;
+	/** True if the temporary file is forced to disk before it is renamed */
+	private final boolean sync;
+	/** True once the file has been renamed or abandoned */
+	private boolean done;
+
+	/**
+	 * Starts writing a new version of the file.
+	 * @param fileName name of the file to replace
+	 * @param sync true to force the new contents to disk before renaming
+	 * @throws IOException if the temporary file cannot be created
+	 */
+	AtomicFileOutputStream(String fileName, boolean sync) throws IOException {
+		this(new File(fileName).getAbsoluteFile(), sync);
+	}
+
+	/**
+	 * Starts writing a new version of the file.
+	 * @param target file to replace
+	 * @param sync true to force the new contents to disk before renaming
+	 * @throws IOException if the temporary file cannot be created
+	 */
+	private AtomicFileOutputStream(File target, boolean sync) throws IOException {
+		this(target, File.createTempFile(prefix(target), ".tmp", target.getParentFile()), sync);
+	}
+
+	/**
+	 * Starts writing the temporary file.
+	 * @param target file to replace
+	 * @param temp temporary file to write
+	 * @param sync true to force the new contents to disk before renaming
+	 * @throws IOException if the temporary file cannot be opened
+	 */
+	private AtomicFileOutputStream(File target, File temp, boolean sync) throws IOException {
+		super(new FileOutputStream(temp));
+		this.target = target;
+		this.temp = temp;
+		this.file = (FileOutputStream) out;
+		this.sync = sync;
+	}
+
+	/**
+	 * Writes the bytes straight to the file instead of one at a time.
+	 * @param b bytes to write
+	 * @param off index of the first byte
+	 * @param len number of bytes
+	 * @throws IOException if the bytes cannot be written
+	 */
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException {
+		file.write(b, off, len);
+	}
+
+	/**
+	 * Finishes the temporary file and renames it over the file.  Closing
+	 * again does nothing.
+	 * @throws IOException if the file cannot be written or renamed
+	 */
+	@Override
+	public void close() throws IOException {
+		if (done) {
+			return;
+		}
+		try {
+			file.flush();
+			if (sync) {
+				file.getFD().sync();
+			}
+			file.close();
+			try {
+				Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE,
+						StandardCopyOption.REPLACE_EXISTING);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+			done = true;
+		} finally {
+			if (!done) {
+				abort();
+			}
+		}
+	}
+
+	/**
+	 * Abandons the new version and deletes the temporary file, leaving the
+	 * file as it was.  Does nothing once the stream is closed.
+	 */
+	void abort() {
+		if (done) {
+			return;
+		}
+		done = true;
+		try {
+			file.close();
+		} catch (IOException e) {
+			//the temporary file is deleted anyway
+		}
+		temp.delete();
+	}
+
+	/**
+	 * Returns the prefix for the temporary file, which names the target so
+	 * a leftover file can be traced.
+	 * @param target file to replace
+	 * @return prefix of at least three characters
+	 */
+	private static String prefix(File target) {
+		return "." + target.getName() + ".";
+	}
+}
@@ -0,0 +1,626 @@
+package edu.ncsu.csc216.course_manager.io;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+import edu.ncsu.csc216.course_manager.courses.Course;
+import edu.ncsu.csc216.course_manager.users.Faculty;
+import edu.ncsu.csc216.course_manager.users.Student;
+
+/**
+ * Read-only store of the courses, students and faculty in a set of record
+ * files, for institutions too large to hold as Course, Student and Faculty
+ * objects.  Each course, student and faculty member has a dense int id,
+ * from 0 in file order, and every relationship is kept in int arrays:
+ * each user's courses and each course's roster are runs of ids in one
+ * shared array.  The text fields of all users are kept as UTF-8 bytes in
+ * one array.  A Course, Student or Faculty object is only built when
+ * toCourse(), toStudent() or toFaculty() asks for one.  Load one into
+ * the system with CourseManager.loadCompact().
+ *
+ * Lines are checked and linked as the object readers do, course by course
+ * in order.  When a line is skipped because one of its courses is not in
+ * the store or cannot be added, the seats and professor assignments it
+ * took for the courses before that one are kept, as they are by
+ * CourseManager.  Such a user is not counted or found by id, but its ids
+ * appear on the rosters and as professors: they start at
+ * getStudentCount() and getFacultyCount().  As in CourseManager, a course
+ * name or user id that repeats is ignored: a later course with the same
+ * name is dropped, and findStudent() and findFaculty() return the first
+ * line for an id.
+ * @author sarahweaver
+ *
+ */
+public class CompactStore {
+	/** Id returned when there is no such course or user */
+	public static final int NONE = -1;
+	/** Charset of the text fields in memory */
+	private static final Charset TEXT = StandardCharsets.UTF_8;
+
+	/** Name of each course */
+	private final String[] courseNames;
+	/** Credits of each course */
+	private final int[] credits;
+	/** Capacity of each course */
+	private final int[] capacities;
+	/** Id of each course by name */
+	private final HashMap<String, Integer> courseIds;
+	/** Faculty id of each course's professor, or NONE */
+	private final int[] professors;
+	/** Start of each course's roster in roster, plus the end of the last */
+	private int[] rosterStart;
+	/** Student ids of every roster, course by course in enrollment order */
+	private int[] roster;
+	/** Students from the student file, then students from skipped lines that took a seat */
+	private final UserTable students;
+	/** Faculty from the faculty file, then faculty from skipped lines that became a professor */
+	private final UserTable faculty;
+
+	/**
+	 * Creates a store of the courses with no users.
+	 * @param courses courses from the course file, with later repeats of a name removed
+	 */
+	private CompactStore(List<Course> courses) {
+		int count = courses.size();
+		courseNames = new String[count];
+		credits = new int[count];
+		capacities = new int[count];
+		courseIds = new HashMap<String, Integer>(2 * count);
+		professors = new int[count];
+		for (int c = 0; c < count; c++) {
+			Course course = courses.get(c);
+			courseNames[c] = course.getName();
+			credits[c] = course.getCredits();
+			capacities[c] = course.getCapacity();
+			courseIds.put(courseNames[c], c);
+			professors[c] = NONE;
+		}
+		students = new UserTable();
+		faculty = new UserTable();
+	}
+
+	/**
+	 * Reads the three record files into a store.  Compressed files are
+	 * read as with the other readers.
+	 * @param courseFileName name of the course records file
+	 * @param studentFileName name of the student records file
+	 * @param facultyFileName name of the faculty records file
+	 * @return the store
+	 * @throws FileNotFoundException if a file doesn't exist or cannot be read
+	 */
+	public static CompactStore read(String courseFileName, String studentFileName, String facultyFileName)
+			throws FileNotFoundException {
+		List<Course> courses = CourseRecordIO.readCourseRecords(courseFileName);
+		HashMap<String, Boolean> names = new HashMap<String, Boolean>();
+		for (int c = courses.size() - 1; c >= 0; c--) {
+			names.put(courses.get(c).getName(), Boolean.TRUE);
+		}
+		if (names.size() < courses.size()) {
+			names.clear();
+			for (int c = 0; c < courses.size(); c++) {
+				if (names.put(courses.get(c).getName(), Boolean.TRUE) != null) {
+					courses.remove(c--);
+				}
+			}
+		}
+		CompactStore store = new CompactStore(courses);
+		store.readStudents(studentFileName);
+		store.readFaculty(facultyFileName);
+		return store;
+	}
+
+	/**
+	 * Reads the students and fills the course rosters in file order.  While
+	 * reading, a student from a skipped line is kept on the rosters by its
+	 * skippedId().
+	 * @param fileName name of the student records file
+	 * @throws FileNotFoundException if the file doesn't exist or cannot be read
+	 */
+	private void readStudents(String fileName) throws FileNotFoundException {
+		int[][] rosters = new int[courseNames.length][];
+		int[] enrolled = new int[courseNames.length];
+		int[] lineCourses = new int[8];
+		UserTable skippedStudents = new UserTable();
+		RecordTokenizer record = RecordTokenizer.open(fileName);
+		try {
+			while (record.nextLine()) {
+				String[] fields = UserRecord.nextUserFields(record);
+				if (fields == null || !record.hasNextInt()) {
+					continue;
+				}
+				int maxCredits = record.nextInt();
+				if (Student.validate(fields[0], fields[1], fields[2], fields[3], fields[4], maxCredits) != null) {
+					continue;
+				}
+				lineCourses = nextCourses(record, lineCourses);
+				int count = lineCourses[lineCourses.length - 1];
+				boolean skipped = count < 0;
+				count = skipped ? ~count : count;
+				int total = 0;
+				for (int k = 0; k < count; k++) {
+					total += credits[lineCourses[k]];
+					if (total > maxCredits) {
+						skipped = true;
+						count = k;
+						break;
+					}
+				}
+				if (skipped && count == 0) {
+					continue;
+				}
+				int s = skipped ? skippedId(skippedStudents.add(fields, maxCredits, lineCourses, count))
+						: students.add(fields, maxCredits, lineCourses, count);
+				for (int k = 0; k < count; k++) {
+					int c = lineCourses[k];
+					if (enrolled[c] < capacities[c]) {
+						if (rosters[c] == null || enrolled[c] == rosters[c].length) {
+							rosters[c] = Arrays.copyOf(rosters[c] == null ? new int[0] : rosters[c],
+									Math.max(8, 2 * enrolled[c]));
+						}
+						rosters[c][enrolled[c]++] = s;
+					}
+				}
+			}
+			record.close();
+		} catch (IOException e) {
+			CourseRecordIO.close(record);
+			throw new FileNotFoundException(e.getMessage());
+		}
+		int listed = students.count;
+		students.append(skippedStudents);
+		students.finish(listed);
+		rosterStart = new int[courseNames.length + 1];
+		for (int c = 0; c < courseNames.length; c++) {
+			rosterStart[c + 1] = rosterStart[c] + enrolled[c];
+		}
+		roster = new int[rosterStart[courseNames.length]];
+		for (int c = 0; c < courseNames.length; c++) {
+			if (enrolled[c] > 0) {
+				System.arraycopy(rosters[c], 0, roster, rosterStart[c], enrolled[c]);
+			}
+		}
+		for (int k = 0; k < roster.length; k++) {
+			if (roster[k] < NONE) {
+				roster[k] = listed + skippedId(roster[k]);
+			}
+		}
+	}
+
+	/**
+	 * Reads the faculty and makes each the professor of the courses on its
+	 * line that have none yet.  While reading, a faculty member from a
+	 * skipped line is kept as a professor by its skippedId().
+	 * @param fileName name of the faculty records file
+	 * @throws FileNotFoundException if the file doesn't exist or cannot be read
+	 */
+	private void readFaculty(String fileName) throws FileNotFoundException {
+		int[] lineCourses = new int[8];
+		UserTable skippedFaculty = new UserTable();
+		RecordTokenizer record = RecordTokenizer.open(fileName);
+		try {
+			while (record.nextLine()) {
+				String[] fields = UserRecord.nextUserFields(record);
+				if (fields == null || !record.hasNextInt()) {
+					continue;
+				}
+				int maxCourses = record.nextInt();
+				if (Faculty.validate(fields[0], fields[1], fields[2], fields[3], fields[4], maxCourses) != null) {
+					continue;
+				}
+				lineCourses = nextCourses(record, lineCourses);
+				int count = lineCourses[lineCourses.length - 1];
+				boolean skipped = count < 0 || count > maxCourses;
+				count = Math.min(count < 0 ? ~count : count, maxCourses);
+				if (skipped && count == 0) {
+					continue;
+				}
+				int f = skipped ? skippedId(skippedFaculty.add(fields, maxCourses, lineCourses, count))
+						: faculty.add(fields, maxCourses, lineCourses, count);
+				for (int k = 0; k < count; k++) {
+					if (professors[lineCourses[k]] == NONE) {
+						professors[lineCourses[k]] = f;
+					}
+				}
+			}
+			record.close();
+		} catch (IOException e) {
+			CourseRecordIO.close(record);
+			throw new FileNotFoundException(e.getMessage());
+		}
+		int listed = faculty.count;
+		faculty.append(skippedFaculty);
+		faculty.finish(listed);
+		for (int c = 0; c < professors.length; c++) {
+			if (professors[c] < NONE) {
+				professors[c] = listed + skippedId(professors[c]);
+			}
+		}
+	}
+
+	/**
+	 * Maps the index of a user from a skipped line to a negative id below
+	 * NONE, and back.
+	 * @param id index among the skipped users, or the negative id
+	 * @return the negative id, or the index
+	 */
+	private static int skippedId(int id) {
+		return NONE - 1 - id;
+	}
+
+	/**
+	 * Reads the course names on the rest of the tokenizer's line as course
+	 * ids.  The number of ids is stored in the last element of the array.
+	 * @param record tokenizer positioned after the user's fields
+	 * @param ids array to reuse for the ids
+	 * @return the ids, in an array that may have grown, with the count in
+	 * its last element.  If a name is not a course or repeats, only the ids
+	 * before it are read and the complement of their count is stored.
+	 */
+	private int[] nextCourses(RecordTokenizer record, int[] ids) {
+		int count = 0;
+		while (record.hasNext()) {
+			Integer c = courseIds.get(record.nextShared());
+			for (int k = 0; k < count && c != null; k++) {
+				if (ids[k] == c) {
+					c = null;
+				}
+			}
+			if (c == null) {
+				count = ~count;
+				break;
+			}
+			if (count == ids.length - 1) {
+				ids = Arrays.copyOf(ids, 2 * ids.length);
+			}
+			ids[count++] = c;
+		}
+		ids[ids.length - 1] = count;
+		return ids;
+	}
+
+	/**
+	 * Returns the number of courses.
+	 * @return number of courses
+	 */
+	public int getCourseCount() {
+		return courseNames.length;
+	}
+
+	/**
+	 * Returns the number of students, not counting students from skipped
+	 * lines.
+	 * @return number of students
+	 */
+	public int getStudentCount() {
+		return students.listed;
+	}
+
+	/**
+	 * Returns the number of faculty, not counting faculty from skipped
+	 * lines.
+	 * @return number of faculty
+	 */
+	public int getFacultyCount() {
+		return faculty.listed;
+	}
+
+	/**
+	 * Returns the id of the course with the name.
+	 * @param name course name
+	 * @return the course id, or NONE
+	 */
+	public int findCourse(String name) {
+		Integer c = name == null ? null : courseIds.get(name);
+		return c == null ? NONE : c;
+	}
+
+	/**
+	 * Returns the id of the student with the user id.
+	 * @param id user id
+	 * @return the student id, or NONE
+	 */
+	public int findStudent(String id) {
+		return students.find(id);
+	}
+
+	/**
+	 * Returns the id of the faculty member with the user id.
+	 * @param id user id
+	 * @return the faculty id, or NONE
+	 */
+	public int findFaculty(String id) {
+		return faculty.find(id);
+	}
+
+	/**
+	 * Returns the name of the course.
+	 * @param c course id
+	 * @return the name
+	 */
+	public String getCourseName(int c) {
+		return courseNames[c];
+	}
+
+	/**
+	 * Returns the ids of the students on the course's roster.
+	 * @param c course id
+	 * @return student ids in enrollment order
+	 */
+	public int[] getRoster(int c) {
+		return Arrays.copyOfRange(roster, rosterStart[c], rosterStart[c + 1]);
+	}
+
+	/**
+	 * Returns the number of students on the course's roster.
+	 * @param c course id
+	 * @return number of students enrolled
+	 */
+	public int getEnrolledCount(int c) {
+		return rosterStart[c + 1] - rosterStart[c];
+	}
+
+	/**
+	 * Returns the id of the course's professor.
+	 * @param c course id
+	 * @return faculty id, or NONE
+	 */
+	public int getProfessor(int c) {
+		return professors[c];
+	}
+
+	/**
+	 * Returns the user id of the student.
+	 * @param s student id
+	 * @return the user id
+	 */
+	public String getStudentId(int s) {
+		return students.field(s, UserTable.ID);
+	}
+
+	/**
+	 * Returns the ids of the courses on the student's line.
+	 * @param s student id
+	 * @return course ids in order
+	 */
+	public int[] getStudentCourses(int s) {
+		return students.courses(s);
+	}
+
+	/**
+	 * Returns the user id of the faculty member.
+	 * @param f faculty id
+	 * @return the user id
+	 */
+	public String getFacultyId(int f) {
+		return faculty.field(f, UserTable.ID);
+	}
+
+	/**
+	 * Returns the ids of the courses on the faculty member's line.
+	 * @param f faculty id
+	 * @return course ids in order
+	 */
+	public int[] getFacultyCourses(int f) {
+		return faculty.courses(f);
+	}
+
+	/**
+	 * Builds a Course from the store, with no students or professor.
+	 * @param c course id
+	 * @return a new Course
+	 */
+	public Course toCourse(int c) {
+		return new Course(courseNames[c], credits[c], capacities[c]);
+	}
+
+	/**
+	 * Builds a Student from the store, with no courses.
+	 * @param s student id
+	 * @return a new Student
+	 */
+	public Student toStudent(int s) {
+		return new Student(students.field(s, 0), students.field(s, 1), students.field(s, 2), students.field(s, 3),
+				students.field(s, 4), students.max[s]);
+	}
+
+	/**
+	 * Builds a Faculty from the store, with no courses.
+	 * @param f faculty id
+	 * @return a new Faculty
+	 */
+	public Faculty toFaculty(int f) {
+		return new Faculty(faculty.field(f, 0), faculty.field(f, 1), faculty.field(f, 2), faculty.field(f, 3),
+				faculty.field(f, 4), faculty.max[f]);
+	}
+
+	/**
+	 * Users of one kind, with their text fields as bytes in one array and
+	 * their courses as runs of course ids in another.
+	 */
+	private static class UserTable {
+		/** Number of text fields of a user */
+		private static final int FIELDS = 5;
+		/** Index of the user id among the text fields */
+		private static final int ID = 2;
+
+		/** Text fields of every user, back to back */
+		private byte[] text = new byte[1 << 12];
+		/** Start of each field in text, FIELDS per user, plus the end of the last */
+		private int[] fieldStart = new int[FIELDS * 256 + 1];
+		/** Max credits or courses of each user */
+		private int[] max = new int[256];
+		/** Start of each user's courses in courses, plus the end of the last */
+		private int[] courseStart = new int[257];
+		/** Course ids of every user, back to back */
+		private int[] courses = new int[1024];
+		/** Number of users */
+		private int count;
+		/** Number of users counted and found by id; the rest are from skipped lines */
+		private int listed;
+		/** Listed users sorted by id, with equal ids in file order */
+		private int[] byId;
+
+		/**
+		 * Adds a user.
+		 * @param fields the user's text fields
+		 * @param maxValue the user's max credits or courses
+		 * @param courseIds ids of the user's courses
+		 * @param courseCount number of course ids
+		 * @return the new user's id
+		 */
+		int add(String[] fields, int maxValue, int[] courseIds, int courseCount) {
+			if (count == max.length) {
+				max = Arrays.copyOf(max, 2 * count);
+				courseStart = Arrays.copyOf(courseStart, 2 * count + 1);
+				fieldStart = Arrays.copyOf(fieldStart, FIELDS * 2 * count + 1);
+			}
+			int at = fieldStart[FIELDS * count];
+			for (int k = 0; k < FIELDS; k++) {
+				byte[] bytes = fields[k].getBytes(TEXT);
+				if (at + bytes.length > text.length) {
+					text = Arrays.copyOf(text, Math.max(at + bytes.length, 2 * text.length));
+				}
+				System.arraycopy(bytes, 0, text, at, bytes.length);
+				at += bytes.length;
+				fieldStart[FIELDS * count + k + 1] = at;
+			}
+			max[count] = maxValue;
+			int end = courseStart[count] + courseCount;
+			if (end > courses.length) {
+				courses = Arrays.copyOf(courses, Math.max(end, 2 * courses.length));
+			}
+			System.arraycopy(courseIds, 0, courses, courseStart[count], courseCount);
+			courseStart[count + 1] = end;
+			return count++;
+		}
+
+		/**
+		 * Adds the users of another table after the users of this one.
+		 * @param other users to add
+		 */
+		void append(UserTable other) {
+			String[] fields = new String[FIELDS];
+			for (int u = 0; u < other.count; u++) {
+				for (int k = 0; k < FIELDS; k++) {
+					fields[k] = other.field(u, k);
+				}
+				int[] ids = other.courses(u);
+				add(fields, other.max[u], ids, ids.length);
+			}
+		}
+
+		/**
+		 * Trims the arrays to the users and sorts the listed users by id.
+		 * @param listedCount number of users, from the first, to count and find by id
+		 */
+		void finish(int listedCount) {
+			listed = listedCount;
+			text = Arrays.copyOf(text, fieldStart[FIELDS * count]);
+			fieldStart = Arrays.copyOf(fieldStart, FIELDS * count + 1);
+			max = Arrays.copyOf(max, count);
+			courses = Arrays.copyOf(courses, courseStart[count]);
+			courseStart = Arrays.copyOf(courseStart, count + 1);
+			byId = new int[listed];
+			for (int u = 0; u < listed; u++) {
+				byId[u] = u;
+			}
+			sort(byId, new int[listed], 0, listed);
+		}
+
+		/**
+		 * Returns a text field of a user.
+		 * @param u user
+		 * @param k index of the field
+		 * @return the field
+		 */
+		String field(int u, int k) {
+			int from = fieldStart[FIELDS * u + k];
+			return new String(text, from, fieldStart[FIELDS * u + k + 1] - from, TEXT);
+		}
+
+		/**
+		 * Returns the course ids of a user.
+		 * @param u user
+		 * @return the course ids
+		 */
+		int[] courses(int u) {
+			return Arrays.copyOfRange(courses, courseStart[u], courseStart[u + 1]);
+		}
+
+		/**
+		 * Returns the first user in file order with the id.
+		 * @param id user id
+		 * @return the user, or NONE
+		 */
+		int find(String id) {
+			if (id == null) {
+				return NONE;
+			}
+			byte[] key = id.getBytes(TEXT);
+			int low = 0;
+			int high = listed - 1;
+			int found = NONE;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				int u = byId[mid];
+				int c = StudentIndex.compare(text, fieldStart[FIELDS * u + ID], fieldStart[FIELDS * u + ID + 1], key,
+						0, key.length);
+				if (c < 0) {
+					low = mid + 1;
+				} else {
+					if (c == 0) {
+						found = u;
+					}
+					high = mid - 1;
+				}
+			}
+			return found;
+		}
+
+		/**
+		 * Compares the ids of two users.
+		 * @param a first user
+		 * @param b second user
+		 * @return negative, zero or positive as a's id is before, the same as or after b's id
+		 */
+		private int compare(int a, int b) {
+			return StudentIndex.compare(text, fieldStart[FIELDS * a + ID], fieldStart[FIELDS * a + ID + 1], text,
+					fieldStart[FIELDS * b + ID], fieldStart[FIELDS * b + ID + 1]);
+		}
+
+		/**
+		 * Sorts users by id with a merge sort, which keeps users with the
+		 * same id in file order.
+		 * @param users users to sort
+		 * @param temp scratch space as long as users
+		 * @param from start of the range to sort
+		 * @param to end of the range to sort
+		 */
+		private void sort(int[] users, int[] temp, int from, int to) {
+			if (to - from < 2) {
+				return;
+			}
+			int mid = (from + to) >>> 1;
+			sort(users, temp, from, mid);
+			sort(users, temp, mid, to);
+			if (compare(users[mid - 1], users[mid]) <= 0) {
+				return;
+			}
+			System.arraycopy(users, from, temp, from, to - from);
+			int i = from;
+			int j = mid;
+			for (int k = from; k < to; k++) {
+				if (j == to || (i < mid && compare(temp[i], temp[j]) <= 0)) {
+					users[k] = temp[i++];
+				} else {
+					users[k] = temp[j++];
+				}
+			}
+		}
+	}
+}
@@ -4,12 +4,14 @@ package edu.ncsu.csc216.course_manager.io;
 import java.io.*;
 
 import java.util.*;
+import java.util.stream.Stream;
 
 
 import edu.ncsu.csc216.course_manager.courses.Course;
 
 /**
  * Class that allows a course record to be inputted and outputted.
+ * Record files may be gzip-compressed; see RecordCompression.
  * @author sarahweaver
  *
  */
@@ -27,40 +29,111 @@ public class CourseRecordIO {
 	 * @throws FileNotFoundException if the file doesn't exist
 	 */
 	public static List<Course> readCourseRecords(String fileName) throws FileNotFoundException {
+		return readCourseRecords(fileName, null);
+	}
+
+	/**
+	 * Reads Course records from the given file, telling the listener how
+	 * much of the file has been read.  Interrupting the thread stops the
+	 * read with a FileNotFoundException.
+	 * @param fileName name of file to read
+	 * @param listener listener told how much of the file has been read, or null
+	 * @return Course records
+	 * @throws FileNotFoundException if the file doesn't exist, cannot be read, or the read is interrupted
+	 */
+	public static List<Course> readCourseRecords(String fileName, ProgressListener listener)
+			throws FileNotFoundException {
+		return readCourseRecords(fileName, listener, null);
+	}
+
+	/**
+	 * Reads Course records from the given file, recording each line that is
+	 * skipped and why in the report.  Lines are checked without throwing
+	 * exceptions.
+	 * @param fileName name of file to read
+	 * @param listener listener told how much of the file has been read, or null
+	 * @param report report of skipped lines, or null
+	 * @return Course records
+	 * @throws FileNotFoundException if the file doesn't exist, cannot be read, or the read is interrupted
+	 */
+	public static List<Course> readCourseRecords(String fileName, ProgressListener listener, LoadReport report)
+			throws FileNotFoundException {
 		List<Course> courses = new ArrayList<Course>();
 			
-		Scanner fileScanner = new Scanner(new File(fileName));
-		while (fileScanner.hasNextLine()) {
-			try {
-				courses.add(processCourse(fileScanner.nextLine()));
-			} catch (IllegalArgumentException e) {
-				//if the exception is thrown, ignore the Student line.  
+		RecordTokenizer records = RecordTokenizer.open(fileName, listener);
+		try {
+			while (records.nextLine()) {
+				Course c = processCourse(records, report);
+				if (c != null) {
+					courses.add(c);
+				}
 			}
+			records.close();
+		} catch (IOException e) {
+			close(records);
+			throw new FileNotFoundException(e.getMessage());
 		}
-		
-		fileScanner.close();
 		return courses;
 	}
-	
+
+	/**
+	 * Returns a stream of the Courses in the file, parsed one line at a
+	 * time as the stream is used.  Lines that readCourseRecords() would
+	 * skip are skipped.  Close the stream to close the file.
+	 * @param fileName name of file to read
+	 * @return the courses in file order
+	 * @throws FileNotFoundException if the file doesn't exist or cannot be opened
+	 */
+	public static Stream<Course> streamCourseRecords(String fileName) throws FileNotFoundException {
+		return RecordStreams.stream(fileName, new RecordChunks.LineParser<Course>() {
+			@Override
+			public Course parse(RecordTokenizer record) {
+				return processCourse(record, null);
+			}
+		});
+	}
+
 	/**
-	 * Creates a Course from the String record.  An IllegalArgumentException is thrown
-	 * if one of the items is missing or if the Course cannot be constructed.
-	 * @param courseLine the line to process
-	 * @return a valid Course
+	 * Closes a tokenizer after a failed read.
+	 * @param records tokenizer to close
 	 */
-	private static Course processCourse(String courseLine) {
-		Scanner lineScanner = new Scanner(courseLine);
+	static void close(RecordTokenizer records) {
 		try {
-			lineScanner.useDelimiter(",");
-			String name = lineScanner.next();
-			int credits = lineScanner.nextInt();
-			int capacity = lineScanner.nextInt();
-			lineScanner.close();
-			return new Course(name, credits, capacity);
-		} catch (NoSuchElementException e) {
-			lineScanner.close();
-			throw new IllegalArgumentException();
-		} 
+			records.close();
+		} catch (IOException e) {
+			//the read has already failed
+		}
+	}
+	
+	/**
+	 * Creates a Course from the current record line.  Null is returned if
+	 * one of the items is missing or if the Course cannot be constructed.
+	 * @param record tokenizer positioned at the line to process
+	 * @param report report of skipped lines, or null
+	 * @return a valid Course, or null if the line has an error
+	 */
+	private static Course processCourse(RecordTokenizer record, LoadReport report) {
+		if (!record.hasNext()) {
+			LoadReport.skip(report, record.getLineNumber(), "missing field");
+			return null;
+		}
+		String name = record.next();
+		if (!record.hasNextInt()) {
+			LoadReport.skip(report, record.getLineNumber(), "credits is not a number");
+			return null;
+		}
+		int credits = record.nextInt();
+		if (!record.hasNextInt()) {
+			LoadReport.skip(report, record.getLineNumber(), "capacity is not a number");
+			return null;
+		}
+		int capacity = record.nextInt();
+		String reason = Course.validate(name, credits, capacity);
+		if (reason != null) {
+			LoadReport.skip(report, record.getLineNumber(), reason);
+			return null;
+		}
+		return new Course(name, credits, capacity);
 	}
 	
 	/**
@@ -70,13 +143,27 @@ public class CourseRecordIO {
 	 * @throws IOException if cannot write to file
 	 */
 	public static void writeCourseRecords(String fileName, List<Course> courses) throws IOException {
-		PrintWriter fileOut = new PrintWriter(new FileWriter(fileName));
-		
-		for (Course c: courses) {
-			fileOut.println(c.toString());
+		writeCourseRecords(fileName, courses, false);
+	}
+
+	/**
+	 * Writes the information about the courses to the given file.
+	 * The file is replaced only once every record has been written.
+	 * @param fileName file name to record data
+	 * @param courses list of courses
+	 * @param sync true to force the records to disk before replacing the file
+	 * @throws IOException if cannot write to file
+	 */
+	public static void writeCourseRecords(String fileName, List<Course> courses, boolean sync) throws IOException {
+		RecordWriter fileOut = new RecordWriter(fileName, sync);
+		try {
+			for (Course c: courses) {
+				fileOut.writeCourse(c);
+			}
+			fileOut.close();
+		} finally {
+			fileOut.abort();
 		}
-		
-		fileOut.close();
 	}
 	
 }
@@ -0,0 +1,238 @@
+package edu.ncsu.csc216.course_manager.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.ncsu.csc216.course_manager.courses.Course;
+
+/**
+ * Appends each change to enrollments, courses and faculty assignments to
+ * a journal file, one short line per change.  Applying the journal to the
+ * snapshot it was started from restores the changes made since, so only
+ * the changes are written instead of every record.
+ *
+ * Each line is written to the file in one write and ends with \n.  A
+ * written line survives the program crashing, but reaches the disk only
+ * when the operating system writes it.  With setSync(true) each line is
+ * forced to the disk before the write returns, so it also survives a
+ * power loss.  A last line without its \n was cut off while being
+ * written.  It is ignored when the journal is read and removed when the
+ * journal is opened again.
+ * @author sarahweaver
+ *
+ */
+public class EnrollmentJournal implements Closeable {
+	/** Stream appending to the journal file */
+	private final FileOutputStream stream;
+	/** True if each line is forced to the disk */
+	private volatile boolean sync;
+	/** True if a failed write could not be undone, so nothing more may be written */
+	private boolean broken;
+
+	/**
+	 * Opens the journal file for appending, creating it if needed.  A last
+	 * line that was cut off is removed first so that it does not run into
+	 * the next line written.
+	 * @param fileName name of the journal file
+	 * @throws IOException if the file cannot be opened
+	 */
+	public EnrollmentJournal(String fileName) throws IOException {
+		removeCutOffLine(fileName);
+		stream = new FileOutputStream(fileName, true);
+	}
+
+	/**
+	 * Sets whether each line is forced to the disk before the write
+	 * returns.  Forcing is slower but keeps every written change through a
+	 * power loss.
+	 * @param sync true to force each line to the disk
+	 */
+	public void setSync(boolean sync) {
+		this.sync = sync;
+	}
+
+	/**
+	 * Records a change to a user's courses: an enrollment, a drop, or a
+	 * faculty assignment or removal.
+	 * @param type kind of change
+	 * @param userId id of the student or faculty member
+	 * @param courseName name of the course
+	 * @throws IOException if the change cannot be written
+	 */
+	public synchronized void append(JournalEntry.Type type, String userId, String courseName) throws IOException {
+		writeLine(type.name() + ',' + userId + ',' + courseName);
+	}
+
+	/**
+	 * Records that the course was added.
+	 * @param c course that was added
+	 * @throws IOException if the change cannot be written
+	 */
+	public synchronized void addCourse(Course c) throws IOException {
+		writeLine(JournalEntry.Type.ADD_COURSE.name() + ',' + c.getName() + ',' + c.getCredits() + ','
+				+ c.getCapacity());
+	}
+
+	/**
+	 * Records that the course was removed.
+	 * @param courseName name of the course
+	 * @throws IOException if the change cannot be written
+	 */
+	public synchronized void removeCourse(String courseName) throws IOException {
+		writeLine(JournalEntry.Type.REMOVE_COURSE.name() + ',' + courseName);
+	}
+
+	/**
+	 * Empties the journal, after its changes have been saved in a snapshot.
+	 * @throws IOException if the journal cannot be emptied
+	 */
+	public synchronized void truncate() throws IOException {
+		stream.getChannel().truncate(0);
+	}
+
+	/**
+	 * Closes the journal file.
+	 * @throws IOException if the file cannot be closed
+	 */
+	@Override
+	public synchronized void close() throws IOException {
+		stream.close();
+	}
+
+	/**
+	 * Writes a line to the file with one write, forcing it to the disk if
+	 * the journal syncs.  If the write fails, the file is cut back to its
+	 * size before the write, so a change that was not recorded never
+	 * appears in the journal.
+	 * @param line line to write, without its \n
+	 * @throws IOException if the line cannot be written
+	 */
+	private void writeLine(String line) throws IOException {
+		if (broken) {
+			throw new IOException("Journal cannot be written after a failed write.");
+		}
+		FileChannel channel = stream.getChannel();
+		long size = channel.size();
+		try {
+			stream.write((line + '\n').getBytes(Charset.defaultCharset()));
+			if (sync) {
+				stream.getFD().sync();
+			}
+		} catch (IOException e) {
+			try {
+				channel.truncate(size);
+			} catch (IOException undoFailed) {
+				broken = true;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Reads the entries of a journal file in the order they were written.
+	 * Lines with errors and a last line that was cut off are ignored.
+	 * @param fileName name of the journal file
+	 * @return the entries
+	 * @throws FileNotFoundException if the file doesn't exist or cannot be read
+	 */
+	public static List<JournalEntry> readJournal(String fileName) throws FileNotFoundException {
+		List<JournalEntry> entries = new ArrayList<JournalEntry>();
+		RecordTokenizer record = RecordTokenizer.open(fileName);
+		boolean lastAdded = false;
+		try {
+			while (record.nextLine()) {
+				lastAdded = false;
+				try {
+					entries.add(processEntry(record));
+					lastAdded = true;
+				} catch (IllegalArgumentException e) {
+					//ignore lines with errors
+				}
+			}
+			record.close();
+			if (lastAdded && !endsWithNewline(fileName)) {
+				entries.remove(entries.size() - 1);
+			}
+		} catch (IOException e) {
+			throw new FileNotFoundException(e.getMessage());
+		}
+		return entries;
+	}
+
+	/**
+	 * Creates a JournalEntry from the current line.
+	 * @param record tokenizer positioned at the line
+	 * @return the entry
+	 * @throws IllegalArgumentException if the line is not a valid entry
+	 */
+	private static JournalEntry processEntry(RecordTokenizer record) {
+		JournalEntry.Type type = JournalEntry.Type.valueOf(record.next());
+		JournalEntry entry;
+		if (type == JournalEntry.Type.ADD_COURSE) {
+			entry = new JournalEntry(type, null, record.next(), record.nextInt(), record.nextInt());
+		} else if (type == JournalEntry.Type.REMOVE_COURSE) {
+			entry = new JournalEntry(type, null, record.next(), 0, 0);
+		} else {
+			entry = new JournalEntry(type, record.next(), record.next(), 0, 0);
+		}
+		if (record.hasNext()) {
+			throw new IllegalArgumentException();
+		}
+		return entry;
+	}
+
+	/**
+	 * Removes the bytes after the last newline of the file, if it exists.
+	 * @param fileName name of the file
+	 * @throws IOException if the file cannot be read or written
+	 */
+	private static void removeCutOffLine(String fileName) throws IOException {
+		if (!new File(fileName).exists()) {
+			return;
+		}
+		RandomAccessFile file = new RandomAccessFile(fileName, "rw");
+		try {
+			long end = file.length();
+			while (end > 0) {
+				file.seek(end - 1);
+				if (file.read() == '\n') {
+					break;
+				}
+				end--;
+			}
+			if (end < file.length()) {
+				file.setLength(end);
+			}
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Returns true if the file is empty or its last byte is a newline.
+	 * @param fileName name of the file
+	 * @return true if the last line of the file is complete
+	 * @throws IOException if the file cannot be read
+	 */
+	private static boolean endsWithNewline(String fileName) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(fileName, "r");
+		try {
+			long length = file.length();
+			if (length == 0) {
+				return true;
+			}
+			file.seek(length - 1);
+			return file.read() == '\n';
+		} finally {
+			file.close();
+		}
+	}
+}
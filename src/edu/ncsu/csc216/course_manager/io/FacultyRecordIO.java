@@ -1,14 +1,11 @@
 package edu.ncsu.csc216.course_manager.io;
 
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
-import java.io.FileWriter;
 import java.io.IOException;
-import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.NoSuchElementException;
-import java.util.Scanner;
+import java.util.Map;
+import java.util.stream.Stream;
 
 import edu.ncsu.csc216.course_manager.courses.Course;
 import edu.ncsu.csc216.course_manager.manager.CourseManager;
@@ -16,6 +13,7 @@ import edu.ncsu.csc216.course_manager.users.Faculty;
 
 /**
  * Class that allows a faculty record to be inputted and outputted.
+ * Record files may be gzip-compressed; see RecordCompression.
  * @author sarahweaver
  *
  */
@@ -29,65 +27,229 @@ public class FacultyRecordIO {
 	 * @throws FileNotFoundException if the file doesn't exist
 	 */
 	public static ArrayList<Faculty> readFacultyRecords(String fileName) throws FileNotFoundException {
+		return readFacultyRecords(fileName, null);
+	}
+
+	/**
+	 * Reads Faculty records from the file, telling the listener how much of
+	 * the file has been read.  If the read fails or the thread is
+	 * interrupted, the faculty read so far are removed from their courses.
+	 * @param fileName name of file to read
+	 * @param listener listener told how much of the file has been read, or null
+	 * @return Faculty records
+	 * @throws FileNotFoundException if the file doesn't exist, cannot be read, or the read is interrupted
+	 */
+	public static ArrayList<Faculty> readFacultyRecords(String fileName, ProgressListener listener)
+			throws FileNotFoundException {
+		return readFacultyRecords(fileName, listener, null);
+	}
+
+	/**
+	 * Reads Faculty records from the file, recording each line that is
+	 * skipped and why in the report.  Lines are checked without throwing
+	 * exceptions.
+	 * @param fileName name of file to read
+	 * @param listener listener told how much of the file has been read, or null
+	 * @param report report of skipped lines, or null
+	 * @return Faculty records
+	 * @throws FileNotFoundException if the file doesn't exist, cannot be read, or the read is interrupted
+	 */
+	public static ArrayList<Faculty> readFacultyRecords(String fileName, ProgressListener listener,
+			LoadReport report) throws FileNotFoundException {
 		ArrayList<Faculty> faculty = new ArrayList<Faculty>();
-		Scanner fileScan;
+		RecordTokenizer records = RecordTokenizer.open(fileName, listener);
         try {
-		    fileScan = new Scanner(new FileInputStream(fileName));
-        
-		    while (fileScan.hasNextLine()) {
-			   try {
-				  Faculty f = processFaculty(fileScan.nextLine());
-				  faculty.add(f);
-			    } catch (IllegalArgumentException e) {
-			    	//if the exception is thrown ignore the line. 
+		    while (records.nextLine()) {
+			    Faculty f = processFaculty(records, report);
+			    if (f != null) {
+			    	faculty.add(f);
 			    }
 		    }
+		    records.close();
         } catch (IOException e) {
-        	throw new FileNotFoundException();
+        	CourseRecordIO.close(records);
+        	for (Faculty f : faculty) {
+        		for (Course c : f.getCourses()) {
+        			if (c.getFaculty() == f) {
+        				c.removeFaculty();
+        			}
+        		}
+        	}
+        	throw new FileNotFoundException(e.getMessage());
         }
-		fileScan.close();
 		return faculty;
 	}
 	
 	/**
-	 * Creates a Faculty object from the String record.  An IllegalArgumentException is thrown
-	 * if one of the items is missing or if the Faculty cannot be constructed.
-	 * @param line the line to process
-	 * @return a valid Faculty 
+	 * Returns a stream of the Faculty in the file, parsed one line at a
+	 * time as the stream is used.  Each Faculty is given the current
+	 * Courses named on its line but is not assigned to them, so the
+	 * courses are not changed.  Lines that readFacultyRecords() would skip
+	 * are skipped.  Close the stream to close the file.
+	 * @param fileName name of file to read
+	 * @return the faculty in file order
+	 * @throws FileNotFoundException if the file doesn't exist or cannot be opened
+	 */
+	public static Stream<Faculty> streamFacultyRecords(String fileName) throws FileNotFoundException {
+		final Map<String, Course> courseIndex = CourseManager.getInstance().getCourseIndex();
+		return RecordStreams.stream(fileName, new RecordChunks.LineParser<Faculty>() {
+			@Override
+			public Faculty parse(RecordTokenizer record) {
+				UserRecord<Faculty> r = parseFaculty(record, null);
+				return r == null ? null : addCourses(r, courseIndex);
+			}
+		});
+	}
+
+	/**
+	 * Gives the Faculty the Courses on its line, in order, without
+	 * assigning it to them.
+	 * @param r faculty and course names from one line
+	 * @param courseIndex courses by name
+	 * @return the faculty, or null if a name is not a course or the faculty cannot add the course
+	 */
+	private static Faculty addCourses(UserRecord<Faculty> r, Map<String, Course> courseIndex) {
+		Faculty f = r.getUser();
+		for (String name : r.getCourseNames()) {
+			Course c = courseIndex.get(name);
+			if (c == null || !f.canAddCourse(c)) {
+				return null;
+			}
+			f.addCourse(c);
+		}
+		return f;
+	}
+
+	/**
+	 * Reads Faculty records by parsing parts of the file on several threads
+	 * at once.  Lines are parsed first, and the faculty are then assigned to
+	 * the current courses in file order, so the result is the same as
+	 * readFacultyRecords().
+	 * @param fileName name of file to read
+	 * @return Faculty records
+	 * @throws FileNotFoundException if the file doesn't exist or cannot be read
+	 */
+	public static ArrayList<Faculty> readFacultyRecordsParallel(String fileName) throws FileNotFoundException {
+		List<UserRecord<Faculty>> records = RecordChunks.parseParallel(fileName,
+				new RecordChunks.LineParser<UserRecord<Faculty>>() {
+					@Override
+					public UserRecord<Faculty> parse(RecordTokenizer record) {
+						return parseFaculty(record, null);
+					}
+				});
+		return linkFaculty(records, CourseManager.getInstance().getCourseIndex(), null);
+	}
+	
+	/**
+	 * Creates a Faculty object from the current record line.  Null is
+	 * returned if one of the items is missing or if the Faculty cannot be
+	 * constructed.
+	 * @param record tokenizer positioned at the line to process
+	 * @param report report of skipped lines, or null
+	 * @return a valid Faculty, or null if the line has an error
 	 */
-	private static Faculty processFaculty(String line) {
-		Scanner lineScanner = new Scanner(line);
+	private static Faculty processFaculty(RecordTokenizer record, LoadReport report) {
+		UserRecord<Faculty> r = parseFaculty(record, report);
+		return r == null ? null : linkFaculty(r, CourseManager.getInstance().getCourseIndex(), report);
+	}
+
+	/**
+	 * Reads the Faculty on each line of the file without assigning them to
+	 * their courses, so the file can be read before or while the courses
+	 * are loaded.  The records are assigned later with linkFaculty().
+	 * @param fileName name of file to read
+	 * @param report report of skipped lines, or null
+	 * @return the faculty and course names, in file order
+	 * @throws FileNotFoundException if the file doesn't exist, cannot be read, or the read is interrupted
+	 */
+	static ArrayList<UserRecord<Faculty>> parseFacultyRecords(String fileName, LoadReport report)
+			throws FileNotFoundException {
+		ArrayList<UserRecord<Faculty>> records = new ArrayList<UserRecord<Faculty>>();
+		RecordTokenizer record = RecordTokenizer.open(fileName);
 		try {
-		    lineScanner.useDelimiter(",");
-		    String firstName = lineScanner.next();
-		    String lastName = lineScanner.next();
-		    String id = lineScanner.next();
-		    String email = lineScanner.next();
-		    String password = lineScanner.next();
-		    int maxCredits = lineScanner.nextInt();
-	        Faculty f = new Faculty(firstName, lastName, id, email, password, maxCredits);
-		    while (lineScanner.hasNext()) {
-		    	String courseName = lineScanner.next();
-		        Course c = CourseManager.getInstance().getCourseByName(courseName);
-		        if (c == null) {
-		    	    lineScanner.close();
-		    	    throw new IllegalArgumentException();
-		        }
-		        if (!f.canAddCourse(c)) {
-			        lineScanner.close();
-			        throw new IllegalArgumentException();
-		        } 
-		        if (f.canAddCourse(c)) {
-		        	f.addCourse(c);
-		        	c.addFaculty(f);
-		        }
-		    }
-		    lineScanner.close();
-		    return f;
-	      } catch (NoSuchElementException e) {
-	    	  lineScanner.close();
-		      throw new IllegalArgumentException();
-	      }
+			while (record.nextLine()) {
+				UserRecord<Faculty> r = parseFaculty(record, report);
+				if (r != null) {
+					records.add(r);
+				}
+			}
+			record.close();
+		} catch (IOException e) {
+			CourseRecordIO.close(record);
+			throw new FileNotFoundException(e.getMessage());
+		}
+		return records;
+	}
+
+	/**
+	 * Assigns each Faculty to the Courses named on its line, in file order.
+	 * @param records faculty and course names from the file
+	 * @param courseIndex courses by name
+	 * @param report report of skipped lines, or null
+	 * @return the faculty whose lines could be linked
+	 */
+	static ArrayList<Faculty> linkFaculty(List<UserRecord<Faculty>> records, Map<String, Course> courseIndex,
+			LoadReport report) {
+		ArrayList<Faculty> faculty = new ArrayList<Faculty>(records.size());
+		for (UserRecord<Faculty> r : records) {
+			Faculty f = linkFaculty(r, courseIndex, report);
+			if (f != null) {
+				faculty.add(f);
+			}
+		}
+		return faculty;
+	}
+	
+	/**
+	 * Reads a Faculty and the names of the Courses on the tokenizer's line
+	 * without assigning the Faculty to them.  The fields are checked before
+	 * the Faculty is created, so a bad line costs no exception.
+	 * @param record tokenizer positioned at the line to process
+	 * @param report report of skipped lines, or null
+	 * @return the faculty and course names, or null if the faculty's fields are invalid
+	 */
+	private static UserRecord<Faculty> parseFaculty(RecordTokenizer record, LoadReport report) {
+		String[] fields = UserRecord.nextUserFields(record);
+		if (fields == null || !record.hasNextInt()) {
+			LoadReport.skip(report, record.getLineNumber(), fields == null ? "missing field"
+					: "max courses is not a number");
+			return null;
+		}
+	    int maxCourses = record.nextInt();
+	    String reason = Faculty.validate(fields[0], fields[1], fields[2], fields[3], fields[4], maxCourses);
+	    if (reason != null) {
+	    	LoadReport.skip(report, record.getLineNumber(), reason);
+	    	return null;
+	    }
+        Faculty f = new Faculty(fields[0], fields[1], fields[2], fields[3], fields[4], maxCourses);
+	    return new UserRecord<Faculty>(f, record);
+	}
+	
+	/**
+	 * Assigns the Faculty to the Courses on its line, in order.
+	 * @param r faculty and course names from one line
+	 * @param courseIndex courses by name
+	 * @param report report of skipped lines, or null
+	 * @return the faculty, or null if a name is not a course or the faculty cannot teach the course
+	 */
+	private static Faculty linkFaculty(UserRecord<Faculty> r, Map<String, Course> courseIndex, LoadReport report) {
+		Faculty f = r.getUser();
+	    for (String name : r.getCourseNames()) {
+	    	Course c = courseIndex.get(name);
+	        if (c == null) {
+	        	LoadReport.skip(report, r.getLineNumber(), "unknown course " + name);
+	    	    return null;
+	        }
+	        if (!f.canAddCourse(c)) {
+	        	LoadReport.skip(report, r.getLineNumber(), "cannot add course " + c.getName());
+	        	return null;
+	        } 
+	        if (f.canAddCourse(c)) {
+	        	f.addCourse(c);
+	        	c.addFaculty(f);
+	        }
+	    }
+	    return f;
      }    
 	
 	/**
@@ -97,11 +259,26 @@ public class FacultyRecordIO {
 	 * @throws IOException if cannot write to file
 	 */
 	public static void writeFacultyRecords(String fileName, List<Faculty> faculty) throws IOException{
-    	PrintWriter fileOut = new PrintWriter(new FileWriter(fileName));
-    	
-    	for (Faculty f : faculty) {
-    		fileOut.println(f.toString());
+    	writeFacultyRecords(fileName, faculty, false);
+    }
+	
+	/**
+	 * Writes the information about the faculty members to the given file.
+	 * The file is replaced only once every record has been written.
+	 * @param fileName file name to record data
+	 * @param faculty list of faculty
+	 * @param sync true to force the records to disk before replacing the file
+	 * @throws IOException if cannot write to file
+	 */
+	public static void writeFacultyRecords(String fileName, List<Faculty> faculty, boolean sync) throws IOException {
+    	RecordWriter fileOut = new RecordWriter(fileName, sync);
+    	try {
+    		for (Faculty f : faculty) {
+    			fileOut.writeFaculty(f);
+    		}
+    		fileOut.close();
+    	} finally {
+    		fileOut.abort();
     	}
-    	fileOut.close();
     }
 }
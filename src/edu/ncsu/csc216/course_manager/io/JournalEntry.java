@@ -0,0 +1,96 @@
+package edu.ncsu.csc216.course_manager.io;
+
+/**
+ * One change recorded in an EnrollmentJournal.  An entry names the user
+ * and course by id and name so it can be applied to the data loaded from
+ * a snapshot.
+ * @author sarahweaver
+ *
+ */
+public class JournalEntry {
+
+	/**
+	 * Kinds of changes that are journaled.
+	 */
+	public enum Type {
+		/** A student enrolled in a course */
+		ENROLL,
+		/** A student dropped a course */
+		DROP,
+		/** A course was added */
+		ADD_COURSE,
+		/** A course was removed */
+		REMOVE_COURSE,
+		/** A faculty member was assigned to a course */
+		ASSIGN,
+		/** A faculty member was removed from a course */
+		UNASSIGN
+	}
+
+	/** Kind of change */
+	private final Type type;
+	/** Id of the user, or null for a course change */
+	private final String userId;
+	/** Name of the course */
+	private final String courseName;
+	/** Credits of an added course */
+	private final int credits;
+	/** Capacity of an added course */
+	private final int capacity;
+
+	/**
+	 * Creates an entry.
+	 * @param type kind of change
+	 * @param userId id of the user, or null for a course change
+	 * @param courseName name of the course
+	 * @param credits credits of an added course
+	 * @param capacity capacity of an added course
+	 */
+	JournalEntry(Type type, String userId, String courseName, int credits, int capacity) {
+		this.type = type;
+		this.userId = userId;
+		this.courseName = courseName;
+		this.credits = credits;
+		this.capacity = capacity;
+	}
+
+	/**
+	 * Returns the kind of change.
+	 * @return the type
+	 */
+	public Type getType() {
+		return type;
+	}
+
+	/**
+	 * Returns the id of the student or faculty member.
+	 * @return the user's id, or null for a course change
+	 */
+	public String getUserId() {
+		return userId;
+	}
+
+	/**
+	 * Returns the name of the course.
+	 * @return the course name
+	 */
+	public String getCourseName() {
+		return courseName;
+	}
+
+	/**
+	 * Returns the credits of an added course.
+	 * @return the credits
+	 */
+	public int getCredits() {
+		return credits;
+	}
+
+	/**
+	 * Returns the capacity of an added course.
+	 * @return the capacity
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+}
@@ -0,0 +1,128 @@
+package edu.ncsu.csc216.course_manager.io;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Lists the lines of a record file that were skipped while it was loaded,
+ * with the reason each line was skipped.  Lines are numbered from 1.
+ * @author sarahweaver
+ *
+ */
+public class LoadReport {
+	/** Name of the file that was loaded */
+	private final String fileName;
+	/** Number of each skipped line, in file order */
+	private final ArrayList<Integer> lineNumbers;
+	/** Reason each line was skipped */
+	private final ArrayList<String> reasons;
+
+	/**
+	 * Creates an empty report for the file.
+	 * @param fileName name of the file being loaded
+	 */
+	public LoadReport(String fileName) {
+		this.fileName = fileName;
+		lineNumbers = new ArrayList<Integer>();
+		reasons = new ArrayList<String>();
+	}
+
+	/**
+	 * Records a skipped line.
+	 * @param lineNumber number of the line
+	 * @param reason why the line was skipped
+	 */
+	public synchronized void skip(int lineNumber, String reason) {
+		lineNumbers.add(lineNumber);
+		reasons.add(reason);
+	}
+
+	/**
+	 * Records a skipped line if there is a report to record it in.
+	 * @param report report to record the line in, or null
+	 * @param lineNumber number of the line
+	 * @param reason why the line was skipped
+	 */
+	static void skip(LoadReport report, int lineNumber, String reason) {
+		if (report != null) {
+			report.skip(lineNumber, reason);
+		}
+	}
+
+	/**
+	 * Puts the skipped lines back in file order, for a report filled in
+	 * by more than one pass over the file.  Lines with the same number
+	 * keep their order.
+	 */
+	synchronized void sort() {
+		Integer[] order = new Integer[lineNumbers.size()];
+		for (int i = 0; i < order.length; i++) {
+			order[i] = i;
+		}
+		Arrays.sort(order, new Comparator<Integer>() {
+			@Override
+			public int compare(Integer a, Integer b) {
+				return Integer.compare(lineNumbers.get(a), lineNumbers.get(b));
+			}
+		});
+		ArrayList<Integer> sortedLines = new ArrayList<Integer>(order.length);
+		ArrayList<String> sortedReasons = new ArrayList<String>(order.length);
+		for (int i : order) {
+			sortedLines.add(lineNumbers.get(i));
+			sortedReasons.add(reasons.get(i));
+		}
+		lineNumbers.clear();
+		lineNumbers.addAll(sortedLines);
+		reasons.clear();
+		reasons.addAll(sortedReasons);
+	}
+
+	/**
+	 * Returns the name of the file that was loaded.
+	 * @return the file name
+	 */
+	public String getFileName() {
+		return fileName;
+	}
+
+	/**
+	 * Returns the number of lines that were skipped.
+	 * @return number of skipped lines
+	 */
+	public synchronized int getSkippedCount() {
+		return lineNumbers.size();
+	}
+
+	/**
+	 * Returns the number of the ith skipped line.
+	 * @param i index of the skipped line, from 0
+	 * @return line number in the file
+	 */
+	public synchronized int getLineNumber(int i) {
+		return lineNumbers.get(i);
+	}
+
+	/**
+	 * Returns the reason the ith skipped line was skipped.
+	 * @param i index of the skipped line, from 0
+	 * @return the reason
+	 */
+	public synchronized String getReason(int i) {
+		return reasons.get(i);
+	}
+
+	/**
+	 * Returns one line for each skipped line, giving its number and reason.
+	 * @return the report as text
+	 */
+	@Override
+	public synchronized String toString() {
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < lineNumbers.size(); i++) {
+			text.append(fileName).append(':').append(lineNumbers.get(i)).append(": ").append(reasons.get(i))
+					.append('\n');
+		}
+		return text.toString();
+	}
+}
@@ -0,0 +1,254 @@
+package edu.ncsu.csc216.course_manager.io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Splits record lines into fields straight from the bytes of a mapped
+ * file, without copying or decoding the line.  Ints are parsed from the
+ * bytes, fields read with nextShared() are found in the pool from the
+ * bytes, and only the fields read with next() are decoded into new
+ * Strings.  Fields follow the same rules as RecordTokenizer.
+ *
+ * The charset must write a comma and a newline as the single ASCII byte,
+ * so that a field's bytes can be found without decoding the line.
+ * @author sarahweaver
+ *
+ */
+class MappedRecordTokenizer extends RecordTokenizer {
+	/** Value of a field that is not an int */
+	private static final long NOT_INT = Long.MIN_VALUE;
+	/** Charset of the file */
+	private final Charset charset;
+	/** Mapped part of the file holding the current line */
+	private ByteBuffer buffer;
+	/** Index of the start of the current line */
+	private int lineStart;
+	/** Index just past the end of the current line */
+	private int lineEnd;
+	/** Index of the start of the next field */
+	private int pos;
+	/** Index of the end of the last field */
+	private int end;
+	/** True if there is another field on the line */
+	private boolean more;
+	/** True if the field last found by fieldEnd() is all ASCII */
+	private boolean ascii;
+	/** Number of lines given with reset() */
+	private int lineNumber;
+	/** Reusable array for the bytes of a field being decoded */
+	private byte[] field = new byte[64];
+	/** Values shared by nextShared(), or null until it is first called */
+	private StringPool pool;
+
+	/**
+	 * Creates a tokenizer for lines of a mapped file given with reset().
+	 * @param charset charset of the file
+	 */
+	MappedRecordTokenizer(Charset charset) {
+		this.charset = charset;
+	}
+
+	/**
+	 * Returns true if lines in the charset can be split into fields without
+	 * decoding them.
+	 * @param charset charset of the file
+	 * @return true if a newline and a comma are each one ASCII byte
+	 */
+	static boolean supports(Charset charset) {
+		byte[] delimiters = "\n,".getBytes(charset);
+		return delimiters.length == 2 && delimiters[0] == '\n' && delimiters[1] == ',';
+	}
+
+	/**
+	 * Starts tokenizing the line between from and to of the buffer.
+	 * @param buffer mapped part of the file
+	 * @param from index of the first byte of the line
+	 * @param to index just past the last byte of the line
+	 */
+	void reset(ByteBuffer buffer, int from, int to) {
+		this.buffer = buffer;
+		lineNumber++;
+		lineStart = from;
+		lineEnd = to;
+		pos = from < to && buffer.get(from) == ',' ? from + 1 : from;
+		end = to;
+		if (end > pos && buffer.get(end - 1) == ',') {
+			end--;
+		}
+		more = pos < end;
+	}
+
+	/**
+	 * Returns the number of lines given with reset().
+	 * @return line number of the current line
+	 */
+	@Override
+	int getLineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * Decodes and returns the current line.
+	 * @return the line
+	 */
+	@Override
+	String getLine() {
+		return decode(lineStart, lineEnd);
+	}
+
+	/**
+	 * Returns true if there is another field on the line.
+	 * @return true if there is another field
+	 */
+	@Override
+	boolean hasNext() {
+		return more;
+	}
+
+	/**
+	 * Decodes and returns the next field.
+	 * @return the field
+	 * @throws IllegalArgumentException if there are no more fields
+	 */
+	@Override
+	String next() {
+		int fieldEnd = fieldEnd();
+		String value = decode(pos, fieldEnd);
+		advance(fieldEnd);
+		return value;
+	}
+
+	/**
+	 * Returns the next field as the same String as every equal field read
+	 * with nextShared() by this tokenizer.  An ASCII field that has been
+	 * seen before is not decoded.
+	 * @return the field
+	 * @throws IllegalArgumentException if there are no more fields
+	 */
+	@Override
+	String nextShared() {
+		int fieldEnd = fieldEnd();
+		if (pool == null) {
+			pool = new StringPool();
+		}
+		String value;
+		if (ascii) {
+			value = pool.intern(buffer, pos, fieldEnd);
+		} else {
+			value = decode(pos, fieldEnd);
+			value = pool.intern(value, 0, value.length());
+		}
+		advance(fieldEnd);
+		return value;
+	}
+
+	/**
+	 * Returns the next field as an int, parsed from its bytes.
+	 * @return the field's value
+	 * @throws IllegalArgumentException if there are no more fields or the
+	 * field is not an int
+	 */
+	@Override
+	int nextInt() {
+		int fieldEnd = fieldEnd();
+		long value = intValue(fieldEnd);
+		if (value == NOT_INT) {
+			throw new IllegalArgumentException();
+		}
+		advance(fieldEnd);
+		return (int) value;
+	}
+
+	/**
+	 * Returns true if there is another field and it is an int, without
+	 * moving past it.
+	 * @return true if nextInt() would return the next field
+	 */
+	@Override
+	boolean hasNextInt() {
+		return more && intValue(fieldEnd()) != NOT_INT;
+	}
+
+	/**
+	 * Parses the next field as an int from its bytes.
+	 * @param fieldEnd end of the next field
+	 * @return the field's value, or NOT_INT if the field is not an int
+	 */
+	private long intValue(int fieldEnd) {
+		int i = pos;
+		boolean negative = false;
+		if (i < fieldEnd && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+			negative = buffer.get(i) == '-';
+			i++;
+		}
+		if (i == fieldEnd) {
+			return NOT_INT;
+		}
+		long limit = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+		long value = 0;
+		for (; i < fieldEnd; i++) {
+			int digit = buffer.get(i) - '0';
+			if (digit < 0 || digit > 9) {
+				return NOT_INT;
+			}
+			value = value * 10 + digit;
+			if (value > limit) {
+				return NOT_INT;
+			}
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Returns the index just past the next field, and notes whether the
+	 * field is all ASCII.
+	 * @return end of the next field
+	 * @throws IllegalArgumentException if there are no more fields
+	 */
+	private int fieldEnd() {
+		if (!more) {
+			throw new IllegalArgumentException();
+		}
+		ascii = true;
+		for (int i = pos; i < end; i++) {
+			byte b = buffer.get(i);
+			if (b == ',') {
+				return i;
+			}
+			if (b < 0) {
+				ascii = false;
+			}
+		}
+		return end;
+	}
+
+	/**
+	 * Moves past the field ending at the given index.
+	 * @param fieldEnd end of the field just read
+	 */
+	private void advance(int fieldEnd) {
+		more = fieldEnd < end;
+		pos = fieldEnd + 1;
+	}
+
+	/**
+	 * Decodes the bytes between from and to of the buffer.
+	 * @param from index of the first byte
+	 * @param to index just past the last byte
+	 * @return the decoded text
+	 */
+	private String decode(int from, int to) {
+		int length = to - from;
+		if (length > field.length) {
+			field = new byte[Math.max(length, 2 * field.length)];
+		}
+		boolean allAscii = true;
+		for (int k = 0; k < length; k++) {
+			field[k] = buffer.get(from + k);
+			allAscii &= field[k] >= 0;
+		}
+		return new String(field, 0, length, allAscii ? StandardCharsets.US_ASCII : charset);
+	}
+}
@@ -0,0 +1,102 @@
+package edu.ncsu.csc216.course_manager.io;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+
+/**
+ * Counts the bytes read from a file and reports them to a listener.  A
+ * read on a thread that has been interrupted throws InterruptedIOException
+ * instead, so a load can be cancelled by interrupting the thread doing it.
+ * @author sarahweaver
+ *
+ */
+class ProgressInputStream extends FilterInputStream {
+	/** Listener told about each read */
+	private final ProgressListener listener;
+	/** Size of the file in bytes */
+	private final long totalBytes;
+	/** Number of bytes read so far */
+	private long bytesRead;
+
+	/**
+	 * Reports the bytes read from the stream to the listener.
+	 * @param in stream to read
+	 * @param totalBytes size of the file in bytes
+	 * @param listener listener to report to
+	 */
+	ProgressInputStream(InputStream in, long totalBytes, ProgressListener listener) {
+		super(in);
+		this.totalBytes = totalBytes;
+		this.listener = listener;
+	}
+
+	/**
+	 * Reads one byte.
+	 * @return the byte, or -1 at the end of the file
+	 * @throws IOException if the byte cannot be read or the thread is interrupted
+	 */
+	@Override
+	public int read() throws IOException {
+		checkInterrupted();
+		int b = super.read();
+		if (b >= 0) {
+			report(1);
+		}
+		return b;
+	}
+
+	/**
+	 * Reads up to len bytes.
+	 * @param b array to read into
+	 * @param off index of the first byte
+	 * @param len largest number of bytes to read
+	 * @return number of bytes read, or -1 at the end of the file
+	 * @throws IOException if the bytes cannot be read or the thread is interrupted
+	 */
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		checkInterrupted();
+		int n = super.read(b, off, len);
+		if (n > 0) {
+			report(n);
+		}
+		return n;
+	}
+
+	/**
+	 * Skips up to n bytes.
+	 * @param n largest number of bytes to skip
+	 * @return number of bytes skipped
+	 * @throws IOException if the bytes cannot be skipped or the thread is interrupted
+	 */
+	@Override
+	public long skip(long n) throws IOException {
+		checkInterrupted();
+		long skipped = super.skip(n);
+		if (skipped > 0) {
+			report(skipped);
+		}
+		return skipped;
+	}
+
+	/**
+	 * Adds to the bytes read and tells the listener.
+	 * @param n number of bytes just read
+	 */
+	private void report(long n) {
+		bytesRead += n;
+		listener.progress(bytesRead, totalBytes);
+	}
+
+	/**
+	 * Stops the read if the thread has been interrupted.
+	 * @throws InterruptedIOException if the thread has been interrupted
+	 */
+	private static void checkInterrupted() throws InterruptedIOException {
+		if (Thread.currentThread().isInterrupted()) {
+			throw new InterruptedIOException("Load cancelled.");
+		}
+	}
+}
@@ -0,0 +1,16 @@
+package edu.ncsu.csc216.course_manager.io;
+
+/**
+ * Is told how much of a record file has been read while the file loads.
+ * @author sarahweaver
+ *
+ */
+public interface ProgressListener {
+
+	/**
+	 * Called on the loading thread each time more of the file is read.
+	 * @param bytesRead number of bytes read so far
+	 * @param totalBytes size of the file in bytes
+	 */
+	void progress(long bytesRead, long totalBytes);
+}
@@ -0,0 +1,233 @@
+package edu.ncsu.csc216.course_manager.io;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Parses the lines of a record file in parallel.  The file is split into
+ * chunks that each start at the beginning of a line, and the chunks are
+ * parsed on the common fork-join pool.  Results are returned in the order
+ * of the lines in the file, and lines that cannot be parsed are skipped.
+ * @author sarahweaver
+ *
+ */
+class RecordChunks {
+	/** Smallest chunk worth parsing on its own: 1MB */
+	static final int MIN_CHUNK = 1 << 20;
+	/** Largest chunk read into memory at once: 64MB */
+	static final int MAX_CHUNK = 1 << 26;
+	/** Number of chunks for each thread of the pool, to even out the work */
+	private static final int CHUNKS_PER_THREAD = 4;
+	/** Bytes read at a time when looking for the end of a line */
+	private static final int SCAN_SIZE = 8192;
+
+	/**
+	 * Parses one line of a record file.
+	 * @param <T> type of record on the line
+	 */
+	interface LineParser<T> {
+		/**
+		 * Parses the tokenizer's current line.  The parser may be called from
+		 * several threads at once.
+		 * @param record tokenizer positioned at the start of the line
+		 * @return the record on the line, or null if the line has an error
+		 * @throws IllegalArgumentException if the line has an error
+		 */
+		T parse(RecordTokenizer record);
+	}
+
+	/**
+	 * Parses every line of the file, splitting it into chunks of about the
+	 * size for the pool's parallelism.
+	 * @param <T> type of record in the file
+	 * @param fileName name of file to read
+	 * @param parser parser for a line
+	 * @return the records in file order
+	 * @throws FileNotFoundException if the file doesn't exist or cannot be read
+	 */
+	static <T> List<T> parseParallel(String fileName, LineParser<T> parser) throws FileNotFoundException {
+		return parseParallel(fileName, parser, 0);
+	}
+
+	/**
+	 * Parses every line of the file in chunks of about the given size.
+	 * Files in a charset where a newline is not a single byte, and
+	 * compressed files, are parsed on the calling thread.
+	 * @param <T> type of record in the file
+	 * @param fileName name of file to read
+	 * @param parser parser for a line
+	 * @param chunkSize bytes in each chunk, or 0 to size chunks for the pool
+	 * @return the records in file order
+	 * @throws FileNotFoundException if the file doesn't exist or cannot be read
+	 */
+	static <T> List<T> parseParallel(String fileName, final LineParser<T> parser, int chunkSize)
+			throws FileNotFoundException {
+		final Charset charset = Charset.defaultCharset();
+		byte[] newline = "\n".getBytes(charset);
+		if (newline.length != 1 || newline[0] != '\n' || RecordCompression.isCompressed(fileName)) {
+			return parseSequential(fileName, parser);
+		}
+		FileInputStream in = new FileInputStream(fileName);
+		try {
+			final FileChannel channel = in.getChannel();
+			long size = channel.size();
+			if (chunkSize <= 0) {
+				int chunks = ForkJoinPool.getCommonPoolParallelism() * CHUNKS_PER_THREAD;
+				chunkSize = (int) Math.max(MIN_CHUNK, Math.min(MAX_CHUNK, size / chunks));
+			}
+			List<Callable<List<T>>> tasks = new ArrayList<Callable<List<T>>>();
+			long start = 0;
+			while (start < size) {
+				final long from = start;
+				final long to = lineEnd(channel, Math.min(size, from + chunkSize), size);
+				tasks.add(new Callable<List<T>>() {
+					@Override
+					public List<T> call() throws IOException {
+						return parseChunk(channel, from, to, charset, parser);
+					}
+				});
+				start = to;
+			}
+			List<T> records = new ArrayList<T>();
+			for (Future<List<T>> result : ForkJoinPool.commonPool().invokeAll(tasks)) {
+				records.addAll(result.get());
+			}
+			return records;
+		} catch (IOException e) {
+			throw new FileNotFoundException(e.getMessage());
+		} catch (ExecutionException e) {
+			throw new FileNotFoundException(e.getCause().getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new FileNotFoundException(e.getMessage());
+		} finally {
+			try {
+				in.close();
+			} catch (IOException e) {
+				//nothing left to read
+			}
+		}
+	}
+
+	/**
+	 * Returns the position just past the first newline at or after the
+	 * given position, or the end of the file if there is none.
+	 * @param channel channel for the file
+	 * @param position position to start looking from
+	 * @param size size of the file
+	 * @return start of the next line
+	 * @throws IOException if the file cannot be read
+	 */
+	private static long lineEnd(FileChannel channel, long position, long size) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(SCAN_SIZE);
+		while (position < size) {
+			buffer.clear();
+			int read = channel.read(buffer, position);
+			if (read < 0) {
+				break;
+			}
+			for (int i = 0; i < read; i++) {
+				if (buffer.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+			position += read;
+		}
+		return size;
+	}
+
+	/**
+	 * Reads and parses the lines between two positions of the file.  Lines
+	 * may end with \n, \r\n or \r, as with BufferedReader.readLine().
+	 * @param <T> type of record in the file
+	 * @param channel channel for the file
+	 * @param from position of the first line of the chunk
+	 * @param to position just past the end of the chunk
+	 * @param charset charset of the file
+	 * @param parser parser for a line
+	 * @return the records in the chunk in order
+	 * @throws IOException if the file cannot be read
+	 */
+	private static <T> List<T> parseChunk(FileChannel channel, long from, long to, Charset charset,
+			LineParser<T> parser) throws IOException {
+		int length = (int) (to - from);
+		byte[] bytes = new byte[length];
+		ByteBuffer buffer = ByteBuffer.wrap(bytes);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, from + buffer.position()) < 0) {
+				throw new IOException("File changed while reading");
+			}
+		}
+		List<T> records = new ArrayList<T>();
+		RecordTokenizer record = new RecordTokenizer();
+		int lineStart = 0;
+		for (int i = 0; i < length; i++) {
+			byte b = bytes[i];
+			if (b != '\n' && b != '\r') {
+				continue;
+			}
+			record.reset(new String(bytes, lineStart, i - lineStart, charset));
+			addRecord(record, parser, records);
+			if (b == '\r' && i + 1 < length && bytes[i + 1] == '\n') {
+				i++;
+			}
+			lineStart = i + 1;
+		}
+		if (lineStart < length) {
+			record.reset(new String(bytes, lineStart, length - lineStart, charset));
+			addRecord(record, parser, records);
+		}
+		return records;
+	}
+
+	/**
+	 * Parses every line of the file on the calling thread.
+	 * @param <T> type of record in the file
+	 * @param fileName name of file to read
+	 * @param parser parser for a line
+	 * @return the records in file order
+	 * @throws FileNotFoundException if the file doesn't exist or cannot be read
+	 */
+	private static <T> List<T> parseSequential(String fileName, LineParser<T> parser) throws FileNotFoundException {
+		List<T> records = new ArrayList<T>();
+		RecordTokenizer record = RecordTokenizer.open(fileName);
+		try {
+			while (record.nextLine()) {
+				addRecord(record, parser, records);
+			}
+			record.close();
+		} catch (IOException e) {
+			throw new FileNotFoundException(e.getMessage());
+		}
+		return records;
+	}
+
+	/**
+	 * Adds the record on the tokenizer's current line to the list, or
+	 * ignores the line if it has an error.
+	 * @param <T> type of record in the file
+	 * @param record tokenizer positioned at the line
+	 * @param parser parser for a line
+	 * @param records list to add the record to
+	 */
+	private static <T> void addRecord(RecordTokenizer record, LineParser<T> parser, List<T> records) {
+		try {
+			T parsed = parser.parse(record);
+			if (parsed != null) {
+				records.add(parsed);
+			}
+		} catch (IllegalArgumentException e) {
+			// ignore lines with errors
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package edu.ncsu.csc216.course_manager.io;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Reads and writes gzip-compressed record files.  A compressed file is
+ * recognized by the two magic bytes at the start of every gzip file, not
+ * by its name, so a compressed file reads the same as a plain one.  Files
+ * are compressed and decompressed as they are streamed, and the plain
+ * records are never written to disk.
+ * @author sarahweaver
+ *
+ */
+class RecordCompression {
+	/** First byte of a gzip file */
+	private static final int MAGIC_1 = 0x1f;
+	/** Second byte of a gzip file */
+	private static final int MAGIC_2 = 0x8b;
+	/** Name ending of a file that is written compressed */
+	static final String SUFFIX = ".gz";
+	/** Size of the compression buffers: 64KB */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Returns true if the file starts with the gzip magic bytes.
+	 * @param fileName name of file to check
+	 * @return true if the file is compressed
+	 * @throws FileNotFoundException if the file doesn't exist or cannot be read
+	 */
+	static boolean isCompressed(String fileName) throws FileNotFoundException {
+		InputStream in = new FileInputStream(fileName);
+		try {
+			try {
+				return in.read() == MAGIC_1 && in.read() == MAGIC_2;
+			} finally {
+				in.close();
+			}
+		} catch (IOException e) {
+			throw new FileNotFoundException(e.getMessage());
+		}
+	}
+
+	/**
+	 * Returns a stream of the plain records in a stream that may be
+	 * compressed.  The first two bytes are checked without being consumed.
+	 * @param in stream of the file
+	 * @return a buffered stream of the records
+	 * @throws IOException if the stream cannot be read or the compressed
+	 * data has a bad header
+	 */
+	static InputStream decompress(InputStream in) throws IOException {
+		BufferedInputStream buffered = new BufferedInputStream(in, BUFFER_SIZE);
+		buffered.mark(2);
+		boolean compressed = buffered.read() == MAGIC_1 && buffered.read() == MAGIC_2;
+		buffered.reset();
+		return compressed ? new BufferedInputStream(new GZIPInputStream(buffered, BUFFER_SIZE), BUFFER_SIZE)
+				: buffered;
+	}
+
+	/**
+	 * Returns true if a file should be written compressed: if its name ends
+	 * with .gz, or if the file it replaces is compressed.
+	 * @param fileName name of file to write
+	 * @return true if the file should be compressed
+	 */
+	static boolean compressOnWrite(String fileName) {
+		if (fileName.endsWith(SUFFIX)) {
+			return true;
+		}
+		if (!new File(fileName).isFile()) {
+			return false;
+		}
+		try {
+			return isCompressed(fileName);
+		} catch (FileNotFoundException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Returns a stream that compresses what is written to it into the given
+	 * stream.  Closing it finishes the compressed data and closes the
+	 * given stream.
+	 * @param out stream for the compressed file
+	 * @return compressing stream
+	 * @throws IOException if the gzip header cannot be written
+	 */
+	static OutputStream compress(OutputStream out) throws IOException {
+		return new GZIPOutputStream(out, BUFFER_SIZE);
+	}
+}
@@ -0,0 +1,185 @@
+package edu.ncsu.csc216.course_manager.io;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import edu.ncsu.csc216.course_manager.courses.Course;
+import edu.ncsu.csc216.course_manager.users.Faculty;
+import edu.ncsu.csc216.course_manager.users.Student;
+
+/**
+ * Loads the course, student and faculty record files together in two
+ * phases.  read() parses the three files at the same time on separate
+ * threads, without looking up any course names, so it takes about as long
+ * as the slowest file.  link() then looks up the course names on every
+ * student and faculty line and enrolls and assigns them in file order, so
+ * the result is the same as reading the courses, then the students, then
+ * the faculty.
+ * @author sarahweaver
+ *
+ */
+public class RecordFiles {
+	/** Number of files parsed at once */
+	private static final int FILES = 3;
+
+	/** Courses read from the course file */
+	private final List<Course> courses;
+	/** Students and course names read from the student file */
+	private final List<UserRecord<Student>> studentRecords;
+	/** Faculty and course names read from the faculty file */
+	private final List<UserRecord<Faculty>> facultyRecords;
+	/** Lines skipped in the course file */
+	private final LoadReport courseReport;
+	/** Lines skipped in the student file */
+	private final LoadReport studentReport;
+	/** Lines skipped in the faculty file */
+	private final LoadReport facultyReport;
+	/** Students that were linked, or null before link() */
+	private ArrayList<Student> students;
+	/** Faculty that were linked, or null before link() */
+	private ArrayList<Faculty> faculty;
+
+	/**
+	 * Creates the parsed contents of the three files.
+	 * @param courses courses from the course file
+	 * @param studentRecords unlinked students from the student file
+	 * @param facultyRecords unlinked faculty from the faculty file
+	 * @param courseReport lines skipped in the course file
+	 * @param studentReport lines skipped in the student file
+	 * @param facultyReport lines skipped in the faculty file
+	 */
+	private RecordFiles(List<Course> courses, List<UserRecord<Student>> studentRecords,
+			List<UserRecord<Faculty>> facultyRecords, LoadReport courseReport, LoadReport studentReport,
+			LoadReport facultyReport) {
+		this.courses = courses;
+		this.studentRecords = studentRecords;
+		this.facultyRecords = facultyRecords;
+		this.courseReport = courseReport;
+		this.studentReport = studentReport;
+		this.facultyReport = facultyReport;
+	}
+
+	/**
+	 * Parses the three record files at the same time.  Nothing outside the
+	 * returned object is changed, so a failed or interrupted read leaves the
+	 * courses as they were.
+	 * @param courseFileName name of the course records file
+	 * @param studentFileName name of the student records file
+	 * @param facultyFileName name of the faculty records file
+	 * @return the parsed files, ready to link
+	 * @throws FileNotFoundException if a file doesn't exist, cannot be read,
+	 * or the thread is interrupted
+	 */
+	public static RecordFiles read(final String courseFileName, final String studentFileName,
+			final String facultyFileName) throws FileNotFoundException {
+		final LoadReport courseReport = new LoadReport(courseFileName);
+		final LoadReport studentReport = new LoadReport(studentFileName);
+		final LoadReport facultyReport = new LoadReport(facultyFileName);
+		ExecutorService pool = Executors.newFixedThreadPool(FILES);
+		try {
+			Future<List<Course>> courses = pool.submit(new Callable<List<Course>>() {
+				@Override
+				public List<Course> call() throws FileNotFoundException {
+					return CourseRecordIO.readCourseRecords(courseFileName, null, courseReport);
+				}
+			});
+			Future<ArrayList<UserRecord<Student>>> students = pool.submit(
+					new Callable<ArrayList<UserRecord<Student>>>() {
+						@Override
+						public ArrayList<UserRecord<Student>> call() throws FileNotFoundException {
+							return StudentRecordIO.parseStudentRecords(studentFileName, studentReport);
+						}
+					});
+			Future<ArrayList<UserRecord<Faculty>>> faculty = pool.submit(
+					new Callable<ArrayList<UserRecord<Faculty>>>() {
+						@Override
+						public ArrayList<UserRecord<Faculty>> call() throws FileNotFoundException {
+							return FacultyRecordIO.parseFacultyRecords(facultyFileName, facultyReport);
+						}
+					});
+			return new RecordFiles(courses.get(), students.get(), faculty.get(), courseReport, studentReport,
+					facultyReport);
+		} catch (ExecutionException e) {
+			throw new FileNotFoundException(e.getCause().getMessage());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new FileNotFoundException("Load cancelled.");
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Enrolls the students and assigns the faculty to the courses named on
+	 * their lines, in file order.  Lines that name a course that is not in
+	 * the index, or that go over a limit, are skipped and reported.  Linking
+	 * again does nothing.
+	 * @param courseIndex courses by name
+	 */
+	public void link(Map<String, Course> courseIndex) {
+		if (students != null) {
+			return;
+		}
+		students = StudentRecordIO.linkStudents(studentRecords, courseIndex, studentReport);
+		faculty = FacultyRecordIO.linkFaculty(facultyRecords, courseIndex, facultyReport);
+		studentReport.sort();
+		facultyReport.sort();
+	}
+
+	/**
+	 * Returns the courses read from the course file.
+	 * @return the courses in file order
+	 */
+	public List<Course> getCourses() {
+		return courses;
+	}
+
+	/**
+	 * Returns the students that were linked.
+	 * @return the students in file order, or an empty list before link()
+	 */
+	public List<Student> getStudents() {
+		return students == null ? new ArrayList<Student>() : students;
+	}
+
+	/**
+	 * Returns the faculty that were linked.
+	 * @return the faculty in file order, or an empty list before link()
+	 */
+	public List<Faculty> getFaculty() {
+		return faculty == null ? new ArrayList<Faculty>() : faculty;
+	}
+
+	/**
+	 * Returns the lines skipped in the course file.
+	 * @return the course file's report
+	 */
+	public LoadReport getCourseReport() {
+		return courseReport;
+	}
+
+	/**
+	 * Returns the lines skipped in the student file.  Lines skipped while
+	 * linking are added by link().
+	 * @return the student file's report
+	 */
+	public LoadReport getStudentReport() {
+		return studentReport;
+	}
+
+	/**
+	 * Returns the lines skipped in the faculty file.  Lines skipped while
+	 * linking are added by link().
+	 * @return the faculty file's report
+	 */
+	public LoadReport getFacultyReport() {
+		return facultyReport;
+	}
+}
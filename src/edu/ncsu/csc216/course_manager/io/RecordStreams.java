@@ -0,0 +1,81 @@
+package edu.ncsu.csc216.course_manager.io;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streams the records of a file one line at a time.  Each line is parsed
+ * only when the stream asks for the next record, and nothing is kept once
+ * it has been passed on, so a file of any size is streamed in constant
+ * memory.  The stream holds the file open until it is closed, so it
+ * should be used in a try-with-resources statement.
+ * @author sarahweaver
+ *
+ */
+class RecordStreams {
+
+	/**
+	 * Returns a stream of the records parsed from each line of the file,
+	 * in file order.  Lines the parser rejects are skipped.  An error
+	 * reading the file while the stream is used is thrown as an
+	 * UncheckedIOException.
+	 * @param <T> type of record in the file
+	 * @param fileName name of file to read
+	 * @param parser parser for a line
+	 * @return the records, which close the file when the stream is closed
+	 * @throws FileNotFoundException if the file doesn't exist or cannot be opened
+	 */
+	static <T> Stream<T> stream(String fileName, final RecordChunks.LineParser<T> parser)
+			throws FileNotFoundException {
+		final RecordTokenizer records = RecordTokenizer.open(fileName);
+		Spliterator<T> lines = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE,
+				Spliterator.ORDERED | Spliterator.NONNULL) {
+			@Override
+			public boolean tryAdvance(Consumer<? super T> action) {
+				try {
+					while (records.nextLine()) {
+						T parsed = parse(records, parser);
+						if (parsed != null) {
+							action.accept(parsed);
+							return true;
+						}
+					}
+					return false;
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		};
+		return StreamSupport.stream(lines, false).onClose(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					records.close();
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Parses the tokenizer's current line.
+	 * @param <T> type of record in the file
+	 * @param record tokenizer positioned at the line
+	 * @param parser parser for a line
+	 * @return the record, or null if the line has an error
+	 */
+	private static <T> T parse(RecordTokenizer record, RecordChunks.LineParser<T> parser) {
+		try {
+			return parser.parse(record);
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,265 @@
+package edu.ncsu.csc216.course_manager.io;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+
+/**
+ * Splits comma separated record lines into fields without regular
+ * expressions.  Fields are read in order from the current line, and ints
+ * are parsed directly from the line's characters.
+ *
+ * Fields follow the same rules as a Scanner using "," as its delimiter:
+ * one leading comma and one trailing comma are ignored, and two commas in a
+ * row give an empty field.
+ * @author sarahweaver
+ *
+ */
+class RecordTokenizer implements Closeable {
+	/** Value of a field that is not an int */
+	private static final long NOT_INT = Long.MIN_VALUE;
+	/** Reader for the record file, or null if lines are given with reset() */
+	private final BufferedReader reader;
+	/** Current line */
+	private String line;
+	/** Index of the start of the next field */
+	private int pos;
+	/** Index of the end of the last field */
+	private int end;
+	/** True if there is another field on the line */
+	private boolean more;
+	/** Number of lines read from the reader */
+	private int lineNumber;
+	/** Values shared by nextShared(), or null until it is first called */
+	private StringPool pool;
+
+	/**
+	 * Creates a tokenizer for lines given with reset().
+	 */
+	RecordTokenizer() {
+		this(null);
+	}
+
+	/**
+	 * Creates a tokenizer that reads lines from the reader.
+	 * @param reader reader for the record file
+	 */
+	RecordTokenizer(BufferedReader reader) {
+		this.reader = reader;
+		reset("");
+	}
+
+	/**
+	 * Opens a tokenizer over the file using the platform charset.
+	 * @param fileName name of file to read
+	 * @return tokenizer for the file
+	 * @throws FileNotFoundException if the file doesn't exist
+	 */
+	static RecordTokenizer open(String fileName) throws FileNotFoundException {
+		return open(fileName, null);
+	}
+
+	/**
+	 * Opens a tokenizer over the file using the platform charset, reporting
+	 * the bytes read to the listener.  A gzip-compressed file is
+	 * decompressed as it is read, and the listener is told how much of the
+	 * compressed file has been read.
+	 * @param fileName name of file to read
+	 * @param listener listener told how much of the file has been read, or null
+	 * @return tokenizer for the file
+	 * @throws FileNotFoundException if the file doesn't exist or its start cannot be read
+	 */
+	static RecordTokenizer open(String fileName, ProgressListener listener) throws FileNotFoundException {
+		InputStream in = new FileInputStream(fileName);
+		if (listener != null) {
+			in = new ProgressInputStream(in, new File(fileName).length(), listener);
+		}
+		try {
+			in = RecordCompression.decompress(in);
+		} catch (IOException e) {
+			try {
+				in.close();
+			} catch (IOException closeFailed) {
+				//the open has already failed
+			}
+			throw new FileNotFoundException(e.getMessage());
+		}
+		return new RecordTokenizer(new BufferedReader(new InputStreamReader(in)));
+	}
+
+	/**
+	 * Reads the next line from the reader.
+	 * @return true if a line was read, false at the end of the file
+	 * @throws IOException if the line cannot be read
+	 */
+	boolean nextLine() throws IOException {
+		String next = reader.readLine();
+		if (next == null) {
+			return false;
+		}
+		lineNumber++;
+		reset(next);
+		return true;
+	}
+
+	/**
+	 * Returns the number of lines read from the reader.
+	 * @return line number of the current line
+	 */
+	int getLineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * Starts tokenizing the given line.
+	 * @param line line to tokenize
+	 */
+	void reset(String line) {
+		this.line = line;
+		pos = line.length() > 0 && line.charAt(0) == ',' ? 1 : 0;
+		end = line.length();
+		if (end > pos && line.charAt(end - 1) == ',') {
+			end--;
+		}
+		more = pos < end;
+	}
+
+	/**
+	 * Returns the current line.
+	 * @return the line
+	 */
+	String getLine() {
+		return line;
+	}
+
+	/**
+	 * Returns true if there is another field on the line.
+	 * @return true if there is another field
+	 */
+	boolean hasNext() {
+		return more;
+	}
+
+	/**
+	 * Returns the next field.
+	 * @return the field
+	 * @throws IllegalArgumentException if there are no more fields
+	 */
+	String next() {
+		int fieldEnd = fieldEnd();
+		String field = line.substring(pos, fieldEnd);
+		advance(fieldEnd);
+		return field;
+	}
+
+	/**
+	 * Returns the next field as the same String as every equal field read
+	 * with nextShared() by this tokenizer.  Use it for fields that repeat
+	 * from line to line, such as names and course names.
+	 * @return the field
+	 * @throws IllegalArgumentException if there are no more fields
+	 */
+	String nextShared() {
+		int fieldEnd = fieldEnd();
+		if (pool == null) {
+			pool = new StringPool();
+		}
+		String field = pool.intern(line, pos, fieldEnd);
+		advance(fieldEnd);
+		return field;
+	}
+
+	/**
+	 * Returns the next field as an int.  An optional sign is allowed, and
+	 * no other characters.
+	 * @return the field's value
+	 * @throws IllegalArgumentException if there are no more fields or the
+	 * field is not an int
+	 */
+	int nextInt() {
+		int fieldEnd = fieldEnd();
+		long value = intValue(fieldEnd);
+		if (value == NOT_INT) {
+			throw new IllegalArgumentException();
+		}
+		advance(fieldEnd);
+		return (int) value;
+	}
+
+	/**
+	 * Returns true if there is another field and it is an int, without
+	 * moving past it.
+	 * @return true if nextInt() would return the next field
+	 */
+	boolean hasNextInt() {
+		return more && intValue(fieldEnd()) != NOT_INT;
+	}
+
+	/**
+	 * Parses the next field as an int.
+	 * @param fieldEnd end of the next field
+	 * @return the field's value, or NOT_INT if the field is not an int
+	 */
+	private long intValue(int fieldEnd) {
+		int i = pos;
+		boolean negative = false;
+		if (i < fieldEnd && (line.charAt(i) == '-' || line.charAt(i) == '+')) {
+			negative = line.charAt(i) == '-';
+			i++;
+		}
+		if (i == fieldEnd) {
+			return NOT_INT;
+		}
+		long limit = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+		long value = 0;
+		for (; i < fieldEnd; i++) {
+			int digit = Character.digit(line.charAt(i), 10);
+			if (digit < 0) {
+				return NOT_INT;
+			}
+			value = value * 10 + digit;
+			if (value > limit) {
+				return NOT_INT;
+			}
+		}
+		return negative ? -value : value;
+	}
+
+	/**
+	 * Returns the index just past the next field.
+	 * @return end of the next field
+	 * @throws IllegalArgumentException if there are no more fields
+	 */
+	private int fieldEnd() {
+		if (!more) {
+			throw new IllegalArgumentException();
+		}
+		int comma = line.indexOf(',', pos);
+		return comma < 0 || comma >= end ? end : comma;
+	}
+
+	/**
+	 * Moves past the field ending at the given index.
+	 * @param fieldEnd end of the field just read
+	 */
+	private void advance(int fieldEnd) {
+		more = fieldEnd < end;
+		pos = fieldEnd + 1;
+	}
+
+	/**
+	 * Closes the reader.
+	 * @throws IOException if the reader cannot be closed
+	 */
+	@Override
+	public void close() throws IOException {
+		if (reader != null) {
+			reader.close();
+		}
+	}
+}
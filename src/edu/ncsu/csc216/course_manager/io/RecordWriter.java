@@ -0,0 +1,192 @@
+package edu.ncsu.csc216.course_manager.io;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import edu.ncsu.csc216.course_manager.courses.Course;
+import edu.ncsu.csc216.course_manager.users.Faculty;
+import edu.ncsu.csc216.course_manager.users.Student;
+import edu.ncsu.csc216.course_manager.users.User;
+
+/**
+ * Writes Course, Student and Faculty records to a file.  Each field is
+ * written straight to a buffered writer, so no String is built for a
+ * record.  The lines are the same as the entities' toString() values.
+ *
+ * A file is written in full to a temporary file that replaces it when
+ * the writer is closed, so a failed or interrupted save never leaves
+ * part of a file.  Call abort() instead of close() if the save fails.
+ * A file whose name ends with .gz, or that replaces a gzip-compressed
+ * file, is compressed as it is written.
+ * @author sarahweaver
+ *
+ */
+public class RecordWriter implements Closeable {
+	/** Size of the write buffer: 64KB */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** Writer for the record file */
+	private final BufferedWriter out;
+	/** Stream replacing the record file, or null when writing to a Writer */
+	private final AtomicFileOutputStream file;
+	/** Digits of the int being written, last digit at the end */
+	private final char[] digits = new char[11];
+
+	/**
+	 * Opens the file for writing using the platform charset.
+	 * @param fileName name of file to write
+	 * @throws IOException if the file cannot be opened for writing
+	 */
+	public RecordWriter(String fileName) throws IOException {
+		this(fileName, false);
+	}
+
+	/**
+	 * Opens the file for writing using the platform charset.
+	 * @param fileName name of file to write
+	 * @param sync true to force the records to disk before replacing the file
+	 * @throws IOException if the file cannot be opened for writing
+	 */
+	public RecordWriter(String fileName, boolean sync) throws IOException {
+		this(RecordCompression.compressOnWrite(fileName), new AtomicFileOutputStream(fileName, sync));
+	}
+
+	/**
+	 * Writes records to the stream replacing a file.
+	 * @param compress true to compress the records
+	 * @param file stream replacing the record file
+	 * @throws IOException if the compressed stream cannot be started
+	 */
+	private RecordWriter(boolean compress, AtomicFileOutputStream file) throws IOException {
+		OutputStream stream = file;
+		if (compress) {
+			try {
+				stream = RecordCompression.compress(file);
+			} catch (IOException e) {
+				file.abort();
+				throw e;
+			}
+		}
+		this.out = new BufferedWriter(new OutputStreamWriter(stream), BUFFER_SIZE);
+		this.file = file;
+	}
+
+	/**
+	 * Writes records to the given writer.
+	 * @param out writer for the records
+	 */
+	public RecordWriter(Writer out) {
+		this.out = new BufferedWriter(out, BUFFER_SIZE);
+		this.file = null;
+	}
+
+	/**
+	 * Writes a Course record line.
+	 * @param c course to write
+	 * @throws IOException if the record cannot be written
+	 */
+	public void writeCourse(Course c) throws IOException {
+		out.write(c.getName());
+		out.write(',');
+		writeInt(c.getCredits());
+		out.write(',');
+		writeInt(c.getCapacity());
+		newLine();
+	}
+
+	/**
+	 * Writes a Student record line.
+	 * @param s student to write
+	 * @throws IOException if the record cannot be written
+	 */
+	public void writeStudent(Student s) throws IOException {
+		writeUser(s, s.getMaxCredits());
+	}
+
+	/**
+	 * Writes a Faculty record line.
+	 * @param f faculty to write
+	 * @throws IOException if the record cannot be written
+	 */
+	public void writeFaculty(Faculty f) throws IOException {
+		writeUser(f, f.getMaxCourses());
+	}
+
+	/**
+	 * Writes the user's fields, the given maximum and the user's courses.
+	 * @param u user to write
+	 * @param max user's max credits or courses
+	 * @throws IOException if the record cannot be written
+	 */
+	private void writeUser(User u, int max) throws IOException {
+		out.write(u.getFirstName());
+		out.write(',');
+		out.write(u.getLastName());
+		out.write(',');
+		out.write(u.getId());
+		out.write(',');
+		out.write(u.getEmail());
+		out.write(',');
+		out.write(u.getPassword());
+		out.write(',');
+		writeInt(max);
+		for (Course c : u.getCourses()) {
+			out.write(',');
+			out.write(c.getName());
+		}
+		newLine();
+	}
+
+	/**
+	 * Writes the decimal digits of an int.
+	 * @param value int to write
+	 * @throws IOException if the int cannot be written
+	 */
+	private void writeInt(int value) throws IOException {
+		long v = Math.abs((long) value);
+		int start = digits.length;
+		do {
+			digits[--start] = (char) ('0' + v % 10);
+			v /= 10;
+		} while (v > 0);
+		if (value < 0) {
+			digits[--start] = '-';
+		}
+		out.write(digits, start, digits.length - start);
+	}
+
+	/**
+	 * Ends the current record line with the platform line separator.
+	 * @throws IOException if the line cannot be ended
+	 */
+	private void newLine() throws IOException {
+		out.newLine();
+	}
+
+	/**
+	 * Flushes the buffered records and closes the file, replacing the old
+	 * contents of the file.  Closing again does nothing.
+	 * @throws IOException if the records cannot be written
+	 */
+	@Override
+	public void close() throws IOException {
+		//Flush first so that a failed write is not followed by the rename
+		out.flush();
+		out.close();
+	}
+
+	/**
+	 * Abandons the records written so far and leaves the file as it was.
+	 * Does nothing once the writer is closed, so it can be called in a
+	 * finally block after close().
+	 */
+	public void abort() {
+		if (file != null) {
+			file.abort();
+		}
+	}
+}
@@ -0,0 +1,59 @@
+package edu.ncsu.csc216.course_manager.io;
+
+import java.util.ArrayList;
+
+import edu.ncsu.csc216.course_manager.courses.Course;
+import edu.ncsu.csc216.course_manager.users.Faculty;
+import edu.ncsu.csc216.course_manager.users.Student;
+
+/**
+ * The Courses, Students and Faculty read from a snapshot file.  The
+ * Students are already enrolled in their Courses and the Faculty are
+ * already assigned to theirs.
+ * @author sarahweaver
+ *
+ */
+public class Snapshot {
+	/** Courses in the snapshot */
+	private final ArrayList<Course> courses;
+	/** Students in the snapshot */
+	private final ArrayList<Student> students;
+	/** Faculty in the snapshot */
+	private final ArrayList<Faculty> faculty;
+
+	/**
+	 * Creates a snapshot of the given lists.
+	 * @param courses courses in the snapshot
+	 * @param students students in the snapshot
+	 * @param faculty faculty in the snapshot
+	 */
+	Snapshot(ArrayList<Course> courses, ArrayList<Student> students, ArrayList<Faculty> faculty) {
+		this.courses = courses;
+		this.students = students;
+		this.faculty = faculty;
+	}
+
+	/**
+	 * Returns the courses in the snapshot.
+	 * @return the courses
+	 */
+	public ArrayList<Course> getCourses() {
+		return courses;
+	}
+
+	/**
+	 * Returns the students in the snapshot.
+	 * @return the students
+	 */
+	public ArrayList<Student> getStudents() {
+		return students;
+	}
+
+	/**
+	 * Returns the faculty in the snapshot.
+	 * @return the faculty
+	 */
+	public ArrayList<Faculty> getFaculty() {
+		return faculty;
+	}
+}
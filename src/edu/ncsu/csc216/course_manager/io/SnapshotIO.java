@@ -0,0 +1,270 @@
+package edu.ncsu.csc216.course_manager.io;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+import edu.ncsu.csc216.course_manager.courses.Course;
+import edu.ncsu.csc216.course_manager.users.Faculty;
+import edu.ncsu.csc216.course_manager.users.Student;
+
+/**
+ * Reads and writes binary snapshots of the Courses, Students and Faculty.
+ * A snapshot refers to Courses, Students and Faculty by their position in
+ * the snapshot instead of by name, so it is read in one pass without
+ * parsing text or looking up course names.  Course rosters are stored in
+ * enrollment order, so a snapshot restores the same rosters that were
+ * written.
+ *
+ * The file holds a header, the courses, the students with the indexes of
+ * their courses, the faculty with the indexes of their courses, and then
+ * each course's roster of student indexes and its faculty index.
+ * @author sarahweaver
+ *
+ */
+public class SnapshotIO {
+	/** First int of a snapshot file: "CMS1" */
+	static final int MAGIC = 0x434D5331;
+	/** Version of the snapshot format */
+	static final int VERSION = 1;
+	/** Index written when there is no faculty for a course */
+	private static final int NONE = -1;
+	/** Size of the file buffer: 64KB */
+	private static final int BUFFER_SIZE = 1 << 16;
+	/** Largest list allocated up front for a count read from a file: 64K items */
+	private static final int MAX_INITIAL_CAPACITY = 1 << 16;
+
+	/**
+	 * Writes a snapshot of the courses, students and faculty.  Courses,
+	 * students and faculty that are not in the lists are left out of the
+	 * rosters and course lists that refer to them.
+	 * @param fileName name of file to write
+	 * @param courses courses to write
+	 * @param students students to write
+	 * @param faculty faculty to write
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void writeSnapshot(String fileName, List<Course> courses, List<Student> students,
+			List<Faculty> faculty) throws IOException {
+		writeSnapshot(fileName, courses, students, faculty, false);
+	}
+
+	/**
+	 * Writes a snapshot of the courses, students and faculty.  The file is
+	 * replaced only once the whole snapshot has been written.
+	 * @param fileName name of file to write
+	 * @param courses courses to write
+	 * @param students students to write
+	 * @param faculty faculty to write
+	 * @param sync true to force the snapshot to disk before replacing the file
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void writeSnapshot(String fileName, List<Course> courses, List<Student> students,
+			List<Faculty> faculty, boolean sync) throws IOException {
+		IdentityHashMap<Object, Integer> courseIndex = indexOf(courses);
+		IdentityHashMap<Object, Integer> studentIndex = indexOf(students);
+		IdentityHashMap<Object, Integer> facultyIndex = indexOf(faculty);
+		AtomicFileOutputStream file = new AtomicFileOutputStream(fileName, sync);
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, BUFFER_SIZE));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(courses.size());
+			for (Course c : courses) {
+				out.writeUTF(c.getName());
+				out.writeInt(c.getCredits());
+				out.writeInt(c.getCapacity());
+			}
+			out.writeInt(students.size());
+			for (Student s : students) {
+				writeUser(out, s.getFirstName(), s.getLastName(), s.getId(), s.getEmail(), s.getPassword(),
+						s.getMaxCredits(), s.getCourses(), courseIndex);
+			}
+			out.writeInt(faculty.size());
+			for (Faculty f : faculty) {
+				writeUser(out, f.getFirstName(), f.getLastName(), f.getId(), f.getEmail(), f.getPassword(),
+						f.getMaxCourses(), f.getCourses(), courseIndex);
+			}
+			for (Course c : courses) {
+				writeIndexes(out, c.getEnrolledStudents(), studentIndex);
+				Integer professor = facultyIndex.get(c.getFaculty());
+				out.writeInt(professor == null ? NONE : professor);
+			}
+			out.flush();
+			out.close();
+		} finally {
+			file.abort();
+		}
+	}
+
+	/**
+	 * Reads a snapshot written by writeSnapshot().
+	 * @param fileName name of file to read
+	 * @return the courses, students and faculty in the snapshot
+	 * @throws IOException if the file doesn't exist, cannot be read, or is
+	 * not a valid snapshot
+	 */
+	public static Snapshot readSnapshot(String fileName) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName), BUFFER_SIZE));
+		try {
+			if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+				throw new IOException("Not a snapshot file: " + fileName);
+			}
+			int count = readCount(in);
+			ArrayList<Course> courses = new ArrayList<Course>(initialCapacity(count));
+			for (int i = 0; i < count; i++) {
+				courses.add(new Course(in.readUTF(), in.readInt(), in.readInt()));
+			}
+			count = readCount(in);
+			ArrayList<Student> students = new ArrayList<Student>(initialCapacity(count));
+			for (int i = 0; i < count; i++) {
+				Student s = new Student(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(),
+						in.readInt());
+				for (int k = readCount(in); k > 0; k--) {
+					check(s.addCourse(courses.get(readIndex(in, courses.size()))));
+				}
+				students.add(s);
+			}
+			count = readCount(in);
+			ArrayList<Faculty> faculty = new ArrayList<Faculty>(initialCapacity(count));
+			for (int i = 0; i < count; i++) {
+				Faculty f = new Faculty(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(),
+						in.readInt());
+				for (int k = readCount(in); k > 0; k--) {
+					check(f.addCourse(courses.get(readIndex(in, courses.size()))));
+				}
+				faculty.add(f);
+			}
+			for (Course c : courses) {
+				for (int k = readCount(in); k > 0; k--) {
+					check(c.enroll(students.get(readIndex(in, students.size()))));
+				}
+				int professor = in.readInt();
+				if (professor != NONE) {
+					check(professor >= 0 && professor < faculty.size() && c.addFaculty(faculty.get(professor)));
+				}
+			}
+			return new Snapshot(courses, students, faculty);
+		} catch (IllegalArgumentException | EOFException e) {
+			throw new IOException("Invalid snapshot file: " + fileName);
+		} finally {
+			in.close();
+		}
+	}
+	/**
+	 * Writes a user's fields and the indexes of the user's courses.
+	 * @param out stream to write to
+	 * @param firstName user's first name
+	 * @param lastName user's last name
+	 * @param id user's id
+	 * @param email user's email
+	 * @param password user's hashed password
+	 * @param max user's max credits or courses
+	 * @param courses user's courses
+	 * @param courseIndex index of each course in the snapshot
+	 * @throws IOException if the user cannot be written
+	 */
+	private static void writeUser(DataOutputStream out, String firstName, String lastName, String id, String email,
+			String password, int max, Course[] courses, IdentityHashMap<Object, Integer> courseIndex)
+			throws IOException {
+		out.writeUTF(firstName);
+		out.writeUTF(lastName);
+		out.writeUTF(id);
+		out.writeUTF(email);
+		out.writeUTF(password);
+		out.writeInt(max);
+		writeIndexes(out, courses, courseIndex);
+	}
+
+	/**
+	 * Writes the number of items that are in the index, then their indexes.
+	 * @param out stream to write to
+	 * @param items items to write
+	 * @param index index of each item in the snapshot
+	 * @throws IOException if the indexes cannot be written
+	 */
+	private static void writeIndexes(DataOutputStream out, Object[] items, IdentityHashMap<Object, Integer> index)
+			throws IOException {
+		int[] indexes = new int[items.length];
+		int count = 0;
+		for (Object item : items) {
+			Integer i = index.get(item);
+			if (i != null) {
+				indexes[count++] = i;
+			}
+		}
+		out.writeInt(count);
+		for (int i = 0; i < count; i++) {
+			out.writeInt(indexes[i]);
+		}
+	}
+
+	/**
+	 * Returns the position of each item in the list.
+	 * @param items list of items
+	 * @return index of each item
+	 */
+	private static IdentityHashMap<Object, Integer> indexOf(List<?> items) {
+		IdentityHashMap<Object, Integer> index = new IdentityHashMap<Object, Integer>(items.size());
+		for (int i = 0; i < items.size(); i++) {
+			index.put(items.get(i), i);
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the capacity to start a list of count items with.  A count
+	 * is only trusted as far as MAX_INITIAL_CAPACITY, so a corrupt count
+	 * makes the read run out of file instead of out of memory.
+	 * @param count number of items the file says follow
+	 * @return initial capacity of the list
+	 */
+	private static int initialCapacity(int count) {
+		return Math.min(count, MAX_INITIAL_CAPACITY);
+	}
+
+	/**
+	 * Reads a count, which may not be negative.
+	 * @param in stream to read from
+	 * @return the count
+	 * @throws IOException if the count cannot be read
+	 * @throws IllegalArgumentException if the count is negative
+	 */
+	private static int readCount(DataInputStream in) throws IOException {
+		int count = in.readInt();
+		check(count >= 0);
+		return count;
+	}
+
+	/**
+	 * Reads an index into an array of the given length.
+	 * @param in stream to read from
+	 * @param length length of the array
+	 * @return the index
+	 * @throws IOException if the index cannot be read
+	 * @throws IllegalArgumentException if the index is out of range
+	 */
+	private static int readIndex(DataInputStream in, int length) throws IOException {
+		int index = in.readInt();
+		check(index >= 0 && index < length);
+		return index;
+	}
+
+	/**
+	 * Checks a condition of a valid snapshot.
+	 * @param valid true if the snapshot is valid so far
+	 * @throws IllegalArgumentException if the condition is false
+	 */
+	private static void check(boolean valid) {
+		if (!valid) {
+			throw new IllegalArgumentException();
+		}
+	}
+}
@@ -0,0 +1,164 @@
+package edu.ncsu.csc216.course_manager.io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Shares one String among equal fields read during a load.  A field is
+ * looked up straight from the characters of its line, or from the bytes
+ * of a mapped file, so a value that has been seen before costs no new
+ * String.  The pool belongs to one load on
+ * one thread and is dropped with it; only the shared values stay in
+ * memory, held by the records that use them.
+ *
+ * The pool keeps at most MAX_SIZE values.  Once it is full, new values
+ * are still returned but are not kept, so a field that is different on
+ * every line cannot make the pool grow without limit.
+ * @author sarahweaver
+ *
+ */
+class StringPool {
+	/** Most values kept in the pool: 64K */
+	static final int MAX_SIZE = 1 << 16;
+	/** Number of slots in a new pool */
+	private static final int INITIAL_SLOTS = 64;
+
+	/** Values by hash, with linear probing; the length is a power of two */
+	private String[] slots;
+	/** Number of values in the pool */
+	private int size;
+
+	/**
+	 * Creates an empty pool.
+	 */
+	StringPool() {
+		slots = new String[INITIAL_SLOTS];
+	}
+
+	/**
+	 * Returns the pooled String equal to the characters between from and to
+	 * of the line, adding it to the pool if it is new and there is room.
+	 * @param line line holding the field
+	 * @param from index of the first character of the field
+	 * @param to index just past the last character of the field
+	 * @return a String equal to the field
+	 */
+	String intern(String line, int from, int to) {
+		int hash = 0;
+		for (int i = from; i < to; i++) {
+			hash = 31 * hash + line.charAt(i);
+		}
+		int length = to - from;
+		int mask = slots.length - 1;
+		for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+			String value = slots[i];
+			if (value == null) {
+				value = line.substring(from, to);
+				if (size < MAX_SIZE) {
+					slots[i] = value;
+					size++;
+					if (2 * size > slots.length) {
+						grow();
+					}
+				}
+				return value;
+			}
+			if (value.length() == length && line.regionMatches(from, value, 0, length)) {
+				return value;
+			}
+		}
+	}
+
+	/**
+	 * Returns the pooled String equal to the ASCII bytes between from and
+	 * to of the buffer, adding it to the pool if it is new and there is
+	 * room.  The bytes are compared in place, so a value that has been
+	 * seen before is found without decoding the field.
+	 * @param bytes buffer holding the field, which must be ASCII
+	 * @param from index of the first byte of the field
+	 * @param to index just past the last byte of the field
+	 * @return a String equal to the field
+	 */
+	String intern(ByteBuffer bytes, int from, int to) {
+		int hash = 0;
+		for (int i = from; i < to; i++) {
+			hash = 31 * hash + bytes.get(i);
+		}
+		int length = to - from;
+		int mask = slots.length - 1;
+		for (int i = spread(hash) & mask; ; i = (i + 1) & mask) {
+			String value = slots[i];
+			if (value == null) {
+				byte[] field = new byte[length];
+				for (int k = 0; k < length; k++) {
+					field[k] = bytes.get(from + k);
+				}
+				value = new String(field, StandardCharsets.US_ASCII);
+				if (size < MAX_SIZE) {
+					slots[i] = value;
+					size++;
+					if (2 * size > slots.length) {
+						grow();
+					}
+				}
+				return value;
+			}
+			if (value.length() == length && matches(value, bytes, from)) {
+				return value;
+			}
+		}
+	}
+
+	/**
+	 * Returns true if the ASCII bytes starting at from are the characters
+	 * of the value.
+	 * @param value pooled value
+	 * @param bytes buffer holding the field
+	 * @param from index of the first byte of the field
+	 * @return true if the field equals the value
+	 */
+	private static boolean matches(String value, ByteBuffer bytes, int from) {
+		for (int k = 0; k < value.length(); k++) {
+			if (value.charAt(k) != bytes.get(from + k)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the number of values in the pool.
+	 * @return number of values
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Doubles the number of slots and puts each value in its new slot.
+	 */
+	private void grow() {
+		String[] old = slots;
+		slots = new String[2 * old.length];
+		int mask = slots.length - 1;
+		for (String value : old) {
+			if (value != null) {
+				int i = spread(value.hashCode()) & mask;
+				while (slots[i] != null) {
+					i = (i + 1) & mask;
+				}
+				slots[i] = value;
+			}
+		}
+	}
+
+	/**
+	 * Mixes the high bits of a String hash into the low bits used to pick
+	 * a slot.
+	 * @param hash String hash code
+	 * @return hash to pick a slot with
+	 */
+	private static int spread(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+}
@@ -0,0 +1,492 @@
+package edu.ncsu.csc216.course_manager.io;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.ncsu.csc216.course_manager.courses.Course;
+import edu.ncsu.csc216.course_manager.users.Student;
+
+/**
+ * Index of a student records file by student id, so each Student is read
+ * from the file only when it is first needed.  The index holds the bytes
+ * of each id and the offset of its line, not the Students themselves.
+ *
+ * Building the index reads every line once and reserves a seat in each
+ * course the line's student would be enrolled in, in file order, so the
+ * courses fill up as if the whole file were loaded.  A Student read later
+ * takes its reserved seats.  A line that repeats an id takes no seat in a
+ * course where the id already has one, as when the file is loaded.
+ * readStudent() returns the first line for an id, and the later lines are
+ * only read by readAll() to take their seats.  The file must not change
+ * while the index is in use.
+ * @author sarahweaver
+ *
+ */
+public class StudentIndex {
+	/** Size of the buffer used to scan the file: 64KB */
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	/** Name of the indexed file */
+	private final String fileName;
+	/** Courses by name */
+	private final Map<String, Course> courseIndex;
+	/** Charset of the file */
+	private final Charset charset;
+	/** Bytes of the id on each indexed line, back to back in file order */
+	private byte[] ids;
+	/** Start of each line's id in ids, plus the end of the last id */
+	private int[] idStart;
+	/** Offset in the file of each indexed line */
+	private long[] offsets;
+	/** Bit k is set if the line's kth course has a seat reserved for it */
+	private long[] seats;
+	/** Number of indexed lines */
+	private int count;
+	/** Indexed lines sorted by id, leaving out lines that repeat an id */
+	private int[] byId;
+	/** Student read from each line, or null if it has not been read */
+	private Student[] students;
+	/** First line for each id by hash of the id, plus one, while the index is built */
+	private int[] firstLines;
+	/** Number of ids in firstLines */
+	private int idCount;
+	/** Courses where each repeated id holds a seat, by its first line, while the index is built */
+	private HashMap<Integer, ArrayList<Course>> held;
+
+	/**
+	 * Creates an empty index for the file.
+	 * @param fileName name of the indexed file
+	 * @param courseIndex courses by name
+	 * @param charset charset of the file
+	 */
+	private StudentIndex(String fileName, Map<String, Course> courseIndex, Charset charset) {
+		this.fileName = fileName;
+		this.courseIndex = courseIndex;
+		this.charset = charset;
+		ids = new byte[1 << 12];
+		idStart = new int[257];
+		offsets = new long[256];
+		seats = new long[256];
+		firstLines = new int[512];
+		held = new HashMap<Integer, ArrayList<Course>>();
+	}
+
+	/**
+	 * Indexes a student records file and reserves the seats of its
+	 * students in the courses.  Lines with errors are not indexed, as
+	 * readStudentRecords() ignores them.
+	 * @param fileName name of the file to index
+	 * @param courseIndex courses by name
+	 * @param charset charset of the file, in which a newline is one byte
+	 * @return the index
+	 * @throws IOException if the file cannot be read
+	 */
+	static StudentIndex build(String fileName, Map<String, Course> courseIndex, Charset charset) throws IOException {
+		StudentIndex index = new StudentIndex(fileName, courseIndex, charset);
+		RecordTokenizer record = new RecordTokenizer();
+		byte[] line = new byte[256];
+		int length = 0;
+		byte[] buffer = new byte[BUFFER_SIZE];
+		long offset = 0;
+		long lineStart = 0;
+		boolean afterReturn = false;
+		InputStream in = new FileInputStream(fileName);
+		try {
+			for (int n = in.read(buffer); n >= 0; n = in.read(buffer)) {
+				for (int i = 0; i < n; i++, offset++) {
+					byte b = buffer[i];
+					if (b == '\n' && afterReturn) {
+						//Second byte of a \r\n
+						afterReturn = false;
+						lineStart = offset + 1;
+						continue;
+					}
+					afterReturn = b == '\r';
+					if (b != '\n' && b != '\r') {
+						if (length == line.length) {
+							line = Arrays.copyOf(line, 2 * length);
+						}
+						line[length++] = b;
+						continue;
+					}
+					record.reset(new String(line, 0, length, charset));
+					index.add(record, lineStart);
+					length = 0;
+					lineStart = offset + 1;
+				}
+			}
+			if (length > 0) {
+				record.reset(new String(line, 0, length, charset));
+				index.add(record, lineStart);
+			}
+		} finally {
+			in.close();
+		}
+		index.finish();
+		return index;
+	}
+
+	/**
+	 * Indexes the line on the tokenizer and reserves its seats, or ignores
+	 * the line if it has an error.  A line that repeats an id does not
+	 * reserve a seat where an earlier line with the id has one.
+	 * @param record tokenizer positioned at the line of student information
+	 * @param offset offset of the line in the file
+	 * @throws IOException if the first line for a repeated id cannot be read
+	 */
+	private void add(RecordTokenizer record, long offset) throws IOException {
+		UserRecord<Student> r = StudentRecordIO.parseStudent(record, null);
+		if (r == null) {
+			// ignore lines with errors
+			return;
+		}
+		byte[] id = r.getUser().getId().getBytes(charset);
+		int first = firstLine(id);
+		ArrayList<Course> taken = first < 0 ? null : heldBy(first);
+		long reserved = StudentRecordIO.reserveSeats(r, courseIndex, taken);
+		if (reserved == StudentRecordIO.NOT_RESERVED) {
+			// ignore lines with errors
+			return;
+		}
+		if (taken != null) {
+			addReserved(taken, r.getCourses(courseIndex), reserved);
+		}
+		if (count == offsets.length) {
+			offsets = Arrays.copyOf(offsets, 2 * count);
+			seats = Arrays.copyOf(seats, 2 * count);
+			idStart = Arrays.copyOf(idStart, 2 * count + 1);
+		}
+		int end = idStart[count] + id.length;
+		if (end > ids.length) {
+			ids = Arrays.copyOf(ids, Math.max(end, 2 * ids.length));
+		}
+		System.arraycopy(id, 0, ids, idStart[count], id.length);
+		idStart[count + 1] = end;
+		offsets[count] = offset;
+		seats[count] = reserved;
+		if (first < 0) {
+			putFirstLine(count);
+		}
+		count++;
+	}
+
+	/**
+	 * Returns the indexed line that first has the id, while the index is
+	 * built.
+	 * @param id bytes of the id
+	 * @return the line, or -1 if no indexed line has the id yet
+	 */
+	private int firstLine(byte[] id) {
+		int mask = firstLines.length - 1;
+		for (int slot = hash(id, 0, id.length) & mask; firstLines[slot] != 0; slot = (slot + 1) & mask) {
+			int line = firstLines[slot] - 1;
+			if (compare(ids, idStart[line], idStart[line + 1], id, 0, id.length) == 0) {
+				return line;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Records the line as the first for its id, growing the table when it
+	 * is half full.
+	 * @param line indexed line whose id is new
+	 */
+	private void putFirstLine(int line) {
+		if (2 * (idCount + 1) > firstLines.length) {
+			int[] old = firstLines;
+			firstLines = new int[2 * old.length];
+			for (int entry : old) {
+				if (entry != 0) {
+					insert(entry - 1);
+				}
+			}
+		}
+		insert(line);
+		idCount++;
+	}
+
+	/**
+	 * Puts the line in the first free slot for its id.
+	 * @param line indexed line
+	 */
+	private void insert(int line) {
+		int mask = firstLines.length - 1;
+		int slot = hash(ids, idStart[line], idStart[line + 1]) & mask;
+		while (firstLines[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		firstLines[slot] = line + 1;
+	}
+
+	/**
+	 * Hashes a range of bytes.
+	 * @param bytes array holding the range
+	 * @param from start of the range
+	 * @param to end of the range
+	 * @return the hash
+	 */
+	private static int hash(byte[] bytes, int from, int to) {
+		int h = 0;
+		for (int i = from; i < to; i++) {
+			h = 31 * h + bytes[i];
+		}
+		return h ^ (h >>> 16);
+	}
+
+	/**
+	 * Returns the courses where the id of the first line holds a seat,
+	 * reading them from the line the first time the id repeats.
+	 * @param first first indexed line for the id
+	 * @return the courses, which the caller adds to as it reserves seats
+	 * @throws IOException if the line cannot be read
+	 */
+	private ArrayList<Course> heldBy(int first) throws IOException {
+		ArrayList<Course> taken = held.get(first);
+		if (taken == null) {
+			taken = new ArrayList<Course>();
+			RecordTokenizer record = new RecordTokenizer();
+			record.reset(readLine(offsets[first]));
+			UserRecord<Student> r = StudentRecordIO.parseStudent(record, null);
+			addReserved(taken, r.getCourses(courseIndex), seats[first]);
+			held.put(first, taken);
+		}
+		return taken;
+	}
+
+	/**
+	 * Adds the courses of a line that have a seat reserved to a list.
+	 * @param taken list to add to
+	 * @param courses courses on the line, in order
+	 * @param reserved the seats reserved, with bit k set for the kth course
+	 */
+	private static void addReserved(List<Course> taken, Course[] courses, long reserved) {
+		for (int k = 0; k < courses.length && k < Long.SIZE; k++) {
+			if ((reserved & 1L << k) != 0) {
+				taken.add(courses[k]);
+			}
+		}
+	}
+
+	/**
+	 * Trims the arrays to the indexed lines and sorts the lines by id.
+	 */
+	private void finish() {
+		firstLines = null;
+		held = null;
+		ids = Arrays.copyOf(ids, idStart[count]);
+		idStart = Arrays.copyOf(idStart, count + 1);
+		offsets = Arrays.copyOf(offsets, count);
+		seats = Arrays.copyOf(seats, count);
+		students = new Student[count];
+		int[] sorted = new int[count];
+		for (int i = 0; i < count; i++) {
+			sorted[i] = i;
+		}
+		sort(sorted, new int[count], 0, count);
+		int distinct = 0;
+		for (int i = 0; i < count; i++) {
+			if (distinct == 0 || compare(sorted[distinct - 1], sorted[i]) != 0) {
+				sorted[distinct++] = sorted[i];
+			}
+		}
+		byId = Arrays.copyOf(sorted, distinct);
+	}
+
+	/**
+	 * Returns the number of students in the index.
+	 * @return number of distinct ids
+	 */
+	public int size() {
+		return byId.length;
+	}
+
+	/**
+	 * Returns true if the file has a student with the id.
+	 * @param id student's id
+	 * @return true if the id is indexed
+	 */
+	public boolean contains(String id) {
+		return find(id) >= 0;
+	}
+
+	/**
+	 * Returns the Student with the id, reading it from the file and
+	 * enrolling it in its reserved seats the first time it is asked for.
+	 * @param id student's id
+	 * @return the student, or null if the file has no valid line for the id
+	 * @throws IOException if the file cannot be read
+	 */
+	public synchronized Student readStudent(String id) throws IOException {
+		int line = find(id);
+		return line < 0 ? null : read(line);
+	}
+
+	/**
+	 * Returns every Student in the index in file order, reading the ones
+	 * that have not been read yet.  Later lines for a repeated id are read
+	 * to take their reserved seats, but are not returned.
+	 * @return the students
+	 * @throws IOException if the file cannot be read
+	 */
+	public synchronized List<Student> readAll() throws IOException {
+		boolean[] first = new boolean[students.length];
+		for (int line : byId) {
+			first[line] = true;
+		}
+		ArrayList<Student> all = new ArrayList<Student>(byId.length);
+		for (int line = 0; line < students.length; line++) {
+			if (!first[line]) {
+				if (seats[line] != 0) {
+					read(line);
+				}
+				continue;
+			}
+			Student s = read(line);
+			if (s != null) {
+				all.add(s);
+			}
+		}
+		return all;
+	}
+
+	/**
+	 * Returns the Student on an indexed line, reading it the first time.
+	 * @param line number of the indexed line
+	 * @return the student, or null if the line no longer matches the courses
+	 * @throws IOException if the file cannot be read
+	 */
+	private Student read(int line) throws IOException {
+		if (students[line] == null) {
+			RecordTokenizer record = new RecordTokenizer();
+			record.reset(readLine(offsets[line]));
+			UserRecord<Student> r = StudentRecordIO.parseStudent(record, null);
+			students[line] = r == null ? null : StudentRecordIO.linkReserved(r, courseIndex, seats[line]);
+		}
+		return students[line];
+	}
+
+	/**
+	 * Reads the line that starts at the offset.
+	 * @param offset offset of the line in the file
+	 * @return the line without its line terminator
+	 * @throws IOException if the file cannot be read
+	 */
+	private String readLine(long offset) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(fileName, "r");
+		try {
+			file.seek(offset);
+			byte[] line = new byte[256];
+			int length = 0;
+			for (int n = file.read(line); n >= 0; n = file.read(line, length, line.length - length)) {
+				for (int i = length; i < length + n; i++) {
+					if (line[i] == '\n' || line[i] == '\r') {
+						return new String(line, 0, i, charset);
+					}
+				}
+				length += n;
+				if (length == line.length) {
+					line = Arrays.copyOf(line, 2 * length);
+				}
+			}
+			return new String(line, 0, length, charset);
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Returns the indexed line for the id.
+	 * @param id student's id
+	 * @return number of the first line with the id, or -1 if there is none
+	 */
+	private int find(String id) {
+		if (id == null) {
+			return -1;
+		}
+		byte[] key = id.getBytes(charset);
+		int low = 0;
+		int high = byId.length - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int line = byId[mid];
+			int c = compare(ids, idStart[line], idStart[line + 1], key, 0, key.length);
+			if (c < 0) {
+				low = mid + 1;
+			} else if (c > 0) {
+				high = mid - 1;
+			} else {
+				return line;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Compares the ids of two indexed lines.
+	 * @param a first line
+	 * @param b second line
+	 * @return negative, zero or positive as a's id is before, the same as or after b's id
+	 */
+	private int compare(int a, int b) {
+		return compare(ids, idStart[a], idStart[a + 1], ids, idStart[b], idStart[b + 1]);
+	}
+
+	/**
+	 * Compares two byte ranges as unsigned bytes.
+	 * @param a first array
+	 * @param aFrom start of the first range
+	 * @param aTo end of the first range
+	 * @param b second array
+	 * @param bFrom start of the second range
+	 * @param bTo end of the second range
+	 * @return negative, zero or positive as the first range is before, the same as or after the second
+	 */
+	static int compare(byte[] a, int aFrom, int aTo, byte[] b, int bFrom, int bTo) {
+		for (; aFrom < aTo && bFrom < bTo; aFrom++, bFrom++) {
+			int c = (a[aFrom] & 0xff) - (b[bFrom] & 0xff);
+			if (c != 0) {
+				return c;
+			}
+		}
+		return (aTo - aFrom) - (bTo - bFrom);
+	}
+
+	/**
+	 * Sorts lines by id with a merge sort, which keeps lines with the same
+	 * id in file order.
+	 * @param lines lines to sort
+	 * @param temp scratch space as long as lines
+	 * @param from start of the range to sort
+	 * @param to end of the range to sort
+	 */
+	private void sort(int[] lines, int[] temp, int from, int to) {
+		if (to - from < 2) {
+			return;
+		}
+		int mid = (from + to) >>> 1;
+		sort(lines, temp, from, mid);
+		sort(lines, temp, mid, to);
+		if (compare(lines[mid - 1], lines[mid]) <= 0) {
+			return;
+		}
+		System.arraycopy(lines, from, temp, from, to - from);
+		int i = from;
+		int j = mid;
+		for (int k = from; k < to; k++) {
+			if (j == to || (i < mid && compare(temp[i], temp[j]) <= 0)) {
+				lines[k] = temp[i++];
+			} else {
+				lines[k] = temp[j++];
+			}
+		}
+	}
+}
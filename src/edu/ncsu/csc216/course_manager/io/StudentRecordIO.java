@@ -1,7 +1,11 @@
 package edu.ncsu.csc216.course_manager.io;
 
 import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.util.*;
+import java.util.stream.Stream;
 
 import edu.ncsu.csc216.course_manager.courses.Course;
 import edu.ncsu.csc216.course_manager.manager.CourseManager;
@@ -9,12 +13,18 @@ import edu.ncsu.csc216.course_manager.users.Student;
 
 /**
  * Class that allows a student record to be inputted and outputted.
+ * Record files may be gzip-compressed; see RecordCompression.
  * @author sarahweaver
  *
  */
 
 public class StudentRecordIO {
 	
+	/** Largest part of a file mapped into memory at once: 256MB */
+	static final int MAP_WINDOW = 1 << 28;
+	/** Returned by reserveSeats() for a line with an error; no line has 64 courses */
+	static final long NOT_RESERVED = -1L;
+	
 	/**
 	 * Reads a file line by line and adds a Student to the list if the student is valid
 	 * @param fileName of the file to be read
@@ -22,68 +32,407 @@ public class StudentRecordIO {
 	 * @throws FileNotFoundException e
 	 */
 	public static ArrayList<Student> readStudentRecords(String fileName) throws FileNotFoundException {
+		return readStudentRecords(fileName, null);
+	}
+
+	/**
+	 * Reads Student records from the file, telling the listener how much of
+	 * the file has been read.  If the read fails or the thread is
+	 * interrupted, the students read so far are dropped from their courses.
+	 * @param fileName of the file to be read
+	 * @param listener listener told how much of the file has been read, or null
+	 * @return the students
+	 * @throws FileNotFoundException if the file doesn't exist, cannot be read, or the read is interrupted
+	 */
+	public static ArrayList<Student> readStudentRecords(String fileName, ProgressListener listener)
+			throws FileNotFoundException {
+		return readStudentRecords(fileName, listener, null);
+	}
+
+	/**
+	 * Reads Student records from the file, recording each line that is
+	 * skipped and why in the report.  Lines are checked without throwing
+	 * exceptions, so a file with many bad lines reads as fast as a clean one.
+	 * @param fileName of the file to be read
+	 * @param listener listener told how much of the file has been read, or null
+	 * @param report report of skipped lines, or null
+	 * @return the students
+	 * @throws FileNotFoundException if the file doesn't exist, cannot be read, or the read is interrupted
+	 */
+	public static ArrayList<Student> readStudentRecords(String fileName, ProgressListener listener,
+			LoadReport report) throws FileNotFoundException {
 		ArrayList<Student> students = new ArrayList<Student>();
-		Scanner fileScan;
+		RecordTokenizer records = RecordTokenizer.open(fileName, listener);
         try {
-		    fileScan = new Scanner(new FileInputStream(fileName));
-        
-		    while (fileScan.hasNextLine()) {
-			   try {
-				  Student s = processStudent(fileScan.nextLine());
-				  students.add(s);
-			    } catch (IllegalArgumentException e) {
-				    // ignore lines with errors
+		    while (records.nextLine()) {
+			    Student s = processStudent(records, report);
+			    if (s != null) {
+			    	students.add(s);
 			    }
 		    }
+		    records.close();
         } catch (IOException e) {
-        	throw new FileNotFoundException();
+        	CourseRecordIO.close(records);
+        	for (Student s : students) {
+        		for (Course c : s.getCourses()) {
+        			c.drop(s);
+        		}
+        	}
+        	throw new FileNotFoundException(e.getMessage());
         }
-		fileScan.close();
 		return students;
 	}
 
+	/**
+	 * Returns a stream of the Students in the file, parsed one line at a
+	 * time as the stream is used, for reading a file too large to hold.
+	 * Each Student is given the current Courses named on its line but is
+	 * not added to their rosters, so the courses are not changed and a
+	 * Student can be dropped as soon as it has been used.  Lines that
+	 * readStudentRecords() would skip are skipped.  Close the stream to
+	 * close the file.
+	 * @param fileName of the file to be read
+	 * @return the students in file order
+	 * @throws FileNotFoundException if the file doesn't exist or cannot be opened
+	 */
+	public static Stream<Student> streamStudentRecords(String fileName) throws FileNotFoundException {
+		final Map<String, Course> courseIndex = CourseManager.getInstance().getCourseIndex();
+		return RecordStreams.stream(fileName, new RecordChunks.LineParser<Student>() {
+			@Override
+			public Student parse(RecordTokenizer record) {
+				UserRecord<Student> r = parseStudent(record, null);
+				return r == null ? null : addCourses(r, courseIndex);
+			}
+		});
+	}
+
+	/**
+	 * Gives the Student the Courses on its line, in order, without
+	 * enrolling it in them.
+	 * @param r student and course names from one line
+	 * @param courseIndex courses by name
+	 * @return the student, or null if a name is not a course or the student cannot add the course
+	 */
+	private static Student addCourses(UserRecord<Student> r, Map<String, Course> courseIndex) {
+		Student s = r.getUser();
+		for (String name : r.getCourseNames()) {
+			Course c = courseIndex.get(name);
+			if (c == null || !s.canAddCourse(c)) {
+				return null;
+			}
+			s.addCourse(c);
+		}
+		return s;
+	}
+
+	/**
+	 * Reads Student records by mapping the file into memory instead of
+	 * streaming it, which suits very large record files.  Lines and fields
+	 * are found directly in the mapped bytes: ints and repeated names are
+	 * read without decoding, and only the other fields are decoded.  The
+	 * result is the same as readStudentRecords().  Files in a charset where
+	 * a newline or a comma is not a single byte, and compressed files, are
+	 * read with readStudentRecords().
+	 * @param fileName of the file to be read
+	 * @return the students
+	 * @throws FileNotFoundException if the file doesn't exist or cannot be read
+	 */
+	public static ArrayList<Student> readStudentRecordsMapped(String fileName) throws FileNotFoundException {
+		return readStudentRecordsMapped(fileName, MAP_WINDOW);
+	}
+	
+	/**
+	 * Reads Student records by mapping the file into memory, at most
+	 * window bytes at a time.  Each window starts at the beginning of a
+	 * line, and a line that does not fit in the window is read again at the
+	 * start of the next one.
+	 * @param fileName of the file to be read
+	 * @param window largest number of bytes mapped at once
+	 * @return the students
+	 * @throws FileNotFoundException if the file doesn't exist or cannot be read
+	 */
+	static ArrayList<Student> readStudentRecordsMapped(String fileName, int window) throws FileNotFoundException {
+		Charset charset = Charset.defaultCharset();
+		if (!MappedRecordTokenizer.supports(charset) || RecordCompression.isCompressed(fileName)) {
+			return readStudentRecords(fileName);
+		}
+		ArrayList<Student> students = new ArrayList<Student>();
+		MappedRecordTokenizer record = new MappedRecordTokenizer(charset);
+		try (FileInputStream in = new FileInputStream(fileName)) {
+			FileChannel channel = in.getChannel();
+			long size = channel.size();
+			long start = 0;
+			while (start < size) {
+				int length = (int) Math.min(window, size - start);
+				boolean last = start + length == size;
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+				int lineStart = 0;
+				for (int i = 0; i < length; i++) {
+					byte b = buffer.get(i);
+					if (b != '\n' && b != '\r') {
+						continue;
+					}
+					if (b == '\r' && i + 1 == length && !last) {
+						//The \n of a \r\n may be in the next window
+						break;
+					}
+					record.reset(buffer, lineStart, i);
+					addStudent(record, students);
+					if (b == '\r' && i + 1 < length && buffer.get(i + 1) == '\n') {
+						i++;
+					}
+					lineStart = i + 1;
+				}
+				if (last) {
+					if (lineStart < length) {
+						record.reset(buffer, lineStart, length);
+						addStudent(record, students);
+					}
+					start = size;
+				} else if (lineStart == 0) {
+					//A single line is longer than the window
+					window = (int) Math.min(Integer.MAX_VALUE, 2L * window);
+				} else {
+					start += lineStart;
+				}
+			}
+		} catch (IOException e) {
+			throw new FileNotFoundException(e.getMessage());
+		}
+		return students;
+	}
+	
+	/**
+	 * Adds the Student on the tokenizer's current line to the list, or
+	 * ignores the line if it has an error.
+	 * @param record tokenizer positioned at the line of student information
+	 * @param students list to add the student to
+	 */
+	private static void addStudent(RecordTokenizer record, ArrayList<Student> students) {
+		Student s = processStudent(record, null);
+		if (s != null) {
+			students.add(s);
+		}
+	}
+
 	/** Reads each element of a Student,Adds a Course to the Student - student 
 	 * enrolled in the course. 
 	 * 
-	 * @param line of student information
-	 * @return the student
-	 * @throw IllegalArgumentException if the course is null or the student cannot enroll in the course.	 * 
+	 * @param record tokenizer positioned at the line of student information
+	 * @param report report of skipped lines, or null
+	 * @return the student, or null if the line has an error
+	 */
+	private static Student processStudent(RecordTokenizer record, LoadReport report) {
+		UserRecord<Student> r = parseStudent(record, report);
+		return r == null ? null : linkStudent(r, CourseManager.getInstance().getCourseIndex(), report);
+	}
+
+	/**
+	 * Reads the Students on each line of the file without enrolling them,
+	 * so the file can be read before or while the courses are loaded.  The
+	 * records are enrolled later with linkStudents().
+	 * @param fileName of the file to be read
+	 * @param report report of skipped lines, or null
+	 * @return the students and course names, in file order
+	 * @throws FileNotFoundException if the file doesn't exist, cannot be read, or the read is interrupted
 	 */
-	private static Student processStudent(String line) {
-		
-		Scanner lineScanner = new Scanner(line);
+	static ArrayList<UserRecord<Student>> parseStudentRecords(String fileName, LoadReport report)
+			throws FileNotFoundException {
+		ArrayList<UserRecord<Student>> records = new ArrayList<UserRecord<Student>>();
+		RecordTokenizer record = RecordTokenizer.open(fileName);
 		try {
-		    lineScanner.useDelimiter(",");
-		    String firstName = lineScanner.next();
-		    String lastName = lineScanner.next();
-		    String id = lineScanner.next();
-		    String email = lineScanner.next();
-		    String password = lineScanner.next();
-		    int maxCredits = lineScanner.nextInt();
-	        Student s = new Student(firstName, lastName, id, email, password, maxCredits);	
-		    while (lineScanner.hasNext()) {
-		    	String courseName = lineScanner.next();
-		        Course c = CourseManager.getInstance().getCourseByName(courseName);
-		        if (c == null) {
-		    	    lineScanner.close();
-		    	    throw new IllegalArgumentException();
-		        }
-		        if (!s.canAddCourse(c)) {
-			        lineScanner.close();
-			        throw new IllegalArgumentException();
-		        } 
-		        if (s.addCourse(c)) {
-		        	c.enroll(s);
-		        }
-		    }
-		    lineScanner.close();
-		    return s;
-	      } catch (NoSuchElementException e) {
-	    	  lineScanner.close();
-		      throw new IllegalArgumentException();
-	      }
+			while (record.nextLine()) {
+				UserRecord<Student> r = parseStudent(record, report);
+				if (r != null) {
+					records.add(r);
+				}
+			}
+			record.close();
+		} catch (IOException e) {
+			CourseRecordIO.close(record);
+			throw new FileNotFoundException(e.getMessage());
+		}
+		return records;
+	}
+
+	/**
+	 * Enrolls each Student in the Courses named on its line, in file order.
+	 * @param records students and course names from the file
+	 * @param courseIndex courses by name
+	 * @param report report of skipped lines, or null
+	 * @return the students whose lines could be linked
+	 */
+	static ArrayList<Student> linkStudents(List<UserRecord<Student>> records, Map<String, Course> courseIndex,
+			LoadReport report) {
+		ArrayList<Student> students = new ArrayList<Student>(records.size());
+		for (UserRecord<Student> r : records) {
+			Student s = linkStudent(r, courseIndex, report);
+			if (s != null) {
+				students.add(s);
+			}
+		}
+		return students;
+	}
+
+	/**
+	 * Reads Student records by parsing parts of the file on several threads
+	 * at once, which is faster than readStudentRecords() for very large
+	 * files.  Lines are parsed first, and the students are then enrolled in
+	 * the current courses in file order, so the result is the same as
+	 * readStudentRecords().
+	 * @param fileName of the file to be read
+	 * @return the students
+	 * @throws FileNotFoundException if the file doesn't exist or cannot be read
+	 */
+	public static ArrayList<Student> readStudentRecordsParallel(String fileName) throws FileNotFoundException {
+		return readStudentRecordsParallel(fileName, 0);
+	}
+
+	/**
+	 * Reads Student records in parallel, splitting the file into chunks of
+	 * about the given size.  Each chunk starts at the beginning of a line.
+	 * @param fileName of the file to be read
+	 * @param chunkSize bytes in each chunk, or 0 to size chunks for the number of threads
+	 * @return the students
+	 * @throws FileNotFoundException if the file doesn't exist or cannot be read
+	 */
+	static ArrayList<Student> readStudentRecordsParallel(String fileName, int chunkSize) throws FileNotFoundException {
+		List<UserRecord<Student>> records = RecordChunks.parseParallel(fileName,
+				new RecordChunks.LineParser<UserRecord<Student>>() {
+					@Override
+					public UserRecord<Student> parse(RecordTokenizer record) {
+						return parseStudent(record, null);
+					}
+				}, chunkSize);
+		return linkStudents(records, CourseManager.getInstance().getCourseIndex(), null);
+	}
+
+	/**
+	 * Reads a Student and the names of the Courses on the tokenizer's line
+	 * without enrolling the Student.  The fields are checked before the
+	 * Student is created, so a bad line costs no exception.
+	 * @param record tokenizer positioned at the line of student information
+	 * @param report report of skipped lines, or null
+	 * @return the student and course names, or null if the student's fields are invalid
+	 */
+	static UserRecord<Student> parseStudent(RecordTokenizer record, LoadReport report) {
+		String[] fields = UserRecord.nextUserFields(record);
+		if (fields == null || !record.hasNextInt()) {
+			LoadReport.skip(report, record.getLineNumber(), fields == null ? "missing field"
+					: "max credits is not a number");
+			return null;
+		}
+	    int maxCredits = record.nextInt();
+	    String reason = Student.validate(fields[0], fields[1], fields[2], fields[3], fields[4], maxCredits);
+	    if (reason != null) {
+	    	LoadReport.skip(report, record.getLineNumber(), reason);
+	    	return null;
+	    }
+        Student s = new Student(fields[0], fields[1], fields[2], fields[3], fields[4], maxCredits);	
+	    return new UserRecord<Student>(s, record);
+	}
+
+	/**
+	 * Enrolls the Student in the Courses on its line, in order.
+	 * @param r student and course names from one line
+	 * @param courseIndex courses by name
+	 * @param report report of skipped lines, or null
+	 * @return the student, or null if a name is not a course or the student cannot enroll in the course
+	 */
+	private static Student linkStudent(UserRecord<Student> r, Map<String, Course> courseIndex, LoadReport report) {
+		Student s = r.getUser();
+	    for (String name : r.getCourseNames()) {
+	    	Course c = courseIndex.get(name);
+	        if (c == null) {
+	        	LoadReport.skip(report, r.getLineNumber(), "unknown course " + name);
+	    	    return null;
+	        }
+	        if (!s.canAddCourse(c)) {
+	        	LoadReport.skip(report, r.getLineNumber(), "cannot add course " + c.getName());
+	        	return null;
+	        } 
+	        if (s.addCourse(c)) {
+	        	c.enroll(s);
+	        }
+	    }
+	    return s;
      }    	
 
+	/**
+	 * Indexes the Student records in a file by id without keeping the
+	 * Students, so each Student is read only when it is first looked up.
+	 * Seats are reserved in the current courses for every student the file
+	 * enrolls, so course capacities are the same as after
+	 * readStudentRecords().
+	 * @param fileName of the file to be indexed
+	 * @return the index, or null if a newline is not a single byte in the
+	 * platform charset or the file is compressed, and the file must be read
+	 * with readStudentRecords()
+	 * @throws FileNotFoundException if the file doesn't exist or cannot be read
+	 */
+	public static StudentIndex indexStudentRecords(String fileName) throws FileNotFoundException {
+		Charset charset = Charset.defaultCharset();
+		byte[] newline = "\n".getBytes(charset);
+		if (newline.length != 1 || newline[0] != '\n' || RecordCompression.isCompressed(fileName)) {
+			return null;
+		}
+		try {
+			return StudentIndex.build(fileName, CourseManager.getInstance().getCourseIndex(), charset);
+		} catch (IOException e) {
+			throw new FileNotFoundException(e.getMessage());
+		}
+	}
+
+	/**
+	 * Checks the Student's Courses as linkStudent() does, but reserves a
+	 * seat in each Course instead of enrolling the Student.  As with
+	 * linkStudent(), seats taken before an error are kept.
+	 * @param r student and course names from one line
+	 * @param courseIndex courses by name
+	 * @param held courses where an earlier line with the same id holds a
+	 * seat, or null; as in Course.enroll(), no second seat is taken in them
+	 * @return the seats reserved, with bit k set for the kth course, or
+	 * NOT_RESERVED if a name is not a course or the student cannot enroll in the course
+	 */
+	static long reserveSeats(UserRecord<Student> r, Map<String, Course> courseIndex, Collection<Course> held) {
+		Student s = r.getUser();
+		Course[] courses = r.getCourses(courseIndex);
+		long reserved = 0;
+		for (int k = 0; k < courses.length; k++) {
+			Course c = courses[k];
+			if (c == null || !s.canAddCourse(c)) {
+				return NOT_RESERVED;
+			}
+			if (s.addCourse(c) && k < Long.SIZE && (held == null || !held.contains(c)) && c.reserveSeat()) {
+				reserved |= 1L << k;
+			}
+		}
+		return reserved;
+	}
+
+	/**
+	 * Adds the Courses on its line to a Student whose seats were reserved by
+	 * reserveSeats(), and enrolls the Student in the reserved seats.
+	 * @param r student and course names from one line
+	 * @param courseIndex courses by name
+	 * @param reserved the seats reserved, with bit k set for the kth course
+	 * @return the student, or null if a name is not a course or the student cannot enroll in the course
+	 */
+	static Student linkReserved(UserRecord<Student> r, Map<String, Course> courseIndex, long reserved) {
+		Student s = r.getUser();
+		Course[] courses = r.getCourses(courseIndex);
+		for (int k = 0; k < courses.length; k++) {
+			Course c = courses[k];
+			if (c == null || !s.canAddCourse(c)) {
+				return null;
+			}
+			if (s.addCourse(c) && k < Long.SIZE && (reserved & 1L << k) != 0) {
+				c.enrollReserved(s);
+			}
+		}
+		return s;
+	}
+
 	/** 
 	 * Opens a file and writes the Student records to it
 	 * @param fileName name of the file
@@ -91,12 +440,27 @@ public class StudentRecordIO {
 	 * @throws IOException if there are any errors opening the file for writing
 	 */
     public static void writeStudentRecords(String fileName, List<Student> students) throws IOException{
-    	PrintWriter fileOut = new PrintWriter(new FileWriter(fileName));
-    	
-    	for (Student s : students) {
-    		fileOut.println(s.toString());
+    	writeStudentRecords(fileName, students, false);
+    }
+    
+    /**
+     * Opens a file and writes the Student records to it.
+     * The file is replaced only once every record has been written.
+     * @param fileName name of the file
+     * @param students list of students
+     * @param sync true to force the records to disk before replacing the file
+     * @throws IOException if there are any errors opening the file for writing
+     */
+    public static void writeStudentRecords(String fileName, List<Student> students, boolean sync) throws IOException {
+    	RecordWriter fileOut = new RecordWriter(fileName, sync);
+    	try {
+    		for (Student s : students) {
+    			fileOut.writeStudent(s);
+    		}
+    		fileOut.close();
+    	} finally {
+    		fileOut.abort();
     	}
-    	fileOut.close();
     }
   	
 	
@@ -0,0 +1,111 @@
+package edu.ncsu.csc216.course_manager.io;
+
+import java.util.Map;
+
+import edu.ncsu.csc216.course_manager.courses.Course;
+import edu.ncsu.csc216.course_manager.users.User;
+
+/**
+ * A User parsed from one line of a record file, along with the names of
+ * the Courses on the line.  The names are not looked up and the User is
+ * not added to the Courses until the record is linked, so lines can be
+ * parsed on any thread, before the Courses are loaded, and linked later in
+ * file order.
+ * @author sarahweaver
+ *
+ * @param <T> type of User on the line
+ */
+class UserRecord<T extends User> {
+	/** Number of text fields at the start of a user's line */
+	private static final int USER_FIELDS = 5;
+	/** Index of the id among the text fields */
+	private static final int ID = 2;
+	/** User on the line */
+	private final T user;
+	/** Names of the courses on the line, in order */
+	private final String[] courseNames;
+	/** Number of the line in the file, or 0 if it is not known */
+	private final int lineNumber;
+
+	/**
+	 * Creates a record for the user from the course names on the rest of
+	 * the tokenizer's line.
+	 * @param user user on the line
+	 * @param record tokenizer positioned after the user's fields
+	 */
+	UserRecord(T user, RecordTokenizer record) {
+		this.user = user;
+		this.lineNumber = record.getLineNumber();
+		String[] names = new String[4];
+		int count = 0;
+		while (record.hasNext()) {
+			if (count == names.length) {
+				String[] grown = new String[2 * count];
+				System.arraycopy(names, 0, grown, 0, count);
+				names = grown;
+			}
+			names[count++] = record.nextShared();
+		}
+		courseNames = new String[count];
+		System.arraycopy(names, 0, courseNames, 0, count);
+	}
+
+	/**
+	 * Returns the user on the line.
+	 * @return the user
+	 */
+	T getUser() {
+		return user;
+	}
+
+	/**
+	 * Returns the names of the courses on the line in order.
+	 * @return the course names
+	 */
+	String[] getCourseNames() {
+		return courseNames;
+	}
+
+	/**
+	 * Looks up the courses named on the line in order.  A name that is not
+	 * a course is null.
+	 * @param courseIndex courses by name
+	 * @return the courses
+	 */
+	Course[] getCourses(Map<String, Course> courseIndex) {
+		Course[] courses = new Course[courseNames.length];
+		for (int i = 0; i < courses.length; i++) {
+			courses[i] = courseIndex.get(courseNames[i]);
+		}
+		return courses;
+	}
+
+	/**
+	 * Returns the number of the line in the file.
+	 * @return the line number, or 0 if it is not known
+	 */
+	int getLineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * Reads the first name, last name, id, email and password at the start
+	 * of a user's line.  Names repeat from line to line, so they are
+	 * shared with the equal names of earlier lines.  Ids, emails and
+	 * passwords are different on nearly every line and are not, so they
+	 * cannot fill the pool and keep names that first appear late in the
+	 * file from being shared.
+	 * @param record tokenizer positioned at the start of the line
+	 * @return the five fields, or null if the line has fewer fields
+	 */
+	static String[] nextUserFields(RecordTokenizer record) {
+		String[] fields = new String[USER_FIELDS];
+		for (int i = 0; i < USER_FIELDS; i++) {
+			if (!record.hasNext()) {
+				return null;
+			}
+			fields[i] = i < ID ? record.nextShared() : record.next();
+		}
+		return fields;
+	}
+}
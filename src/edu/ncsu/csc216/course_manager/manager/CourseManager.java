@@ -1,6 +1,8 @@
 package edu.ncsu.csc216.course_manager.manager;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.io.*;
 
 import edu.ncsu.csc216.course_manager.courses.Course;
@@ -8,9 +10,6 @@ import edu.ncsu.csc216.course_manager.io.*;
 import edu.ncsu.csc216.course_manager.users.Faculty;
 import edu.ncsu.csc216.course_manager.users.Student;
 import edu.ncsu.csc216.course_manager.users.User;
-
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 /**
  * Manages the courses and the students. 
  * @author sarahweaver
@@ -20,22 +19,61 @@ import java.security.NoSuchAlgorithmException;
 public class CourseManager {
 	/** CourseManager singleton instance */
 	private static CourseManager manager;
-	/** List of all Courses in the system */
+	/** List of all Courses in the system, guarded by courseLock */
 	private ArrayList<Course> courses;
+	/** Index of all Courses in the system by name */
+	private ConcurrentHashMap<String, Course> courseIndex;
+	/** Lock held while the list of Courses is read or changed */
+	private final Object courseLock = new Object();
 	/** List of all Students in the system */
 	private ArrayList<Student> students;
 	/** List of all Faculty in the system */
 	private ArrayList<Faculty> faculty;
+	/** Directory of all Students and Faculty in the system by id */
+	private Map<String, User> users;
+	/** Index of the student records file while its students are loaded lazily, or null */
+	private volatile StudentIndex studentIndex;
+	/** Position in the list of Students where the lazily loaded Students belong */
+	private int studentIndexPosition;
+	/**
+	 * Held while the lazy index is set or its Students are put into the
+	 * list of Students.  It is taken before the index and any Course.
+	 */
+	private final Object studentIndexLock = new Object();
 	/** Currently logged in User */
 	private User currentUser;
+	/** Open sessions by token */
+	private ConcurrentHashMap<String, Session> sessions;
+	/** Time in milliseconds a session may be idle before it expires */
+	private volatile long sessionTimeout;
 	/** Course records file name */
 	private String courseFileName;
 	/** Student records file name */
 	private String studentFileName;
 	/** Faculty records file name */
 	private String facultyFileName;
-	/** Hashing algorithm */
-	private static final String HASH_ALGORITHM = "SHA-256";
+	/** Courses and users loaded with loadCompact(), or null */
+	private volatile CompactStore compactStore;
+	/** Journal of changes since the last snapshot, or null if changes are not journaled */
+	private volatile EnrollmentJournal journal;
+	/**
+	 * Held shared by every journaled change and exclusively by
+	 * checkpoint(), so no change falls between a checkpoint's snapshot and
+	 * the journal being emptied.  It is taken before any Course or user.
+	 */
+	private final ReentrantReadWriteLock changeLock = new ReentrantReadWriteLock();
+	/** True if the courses may differ from the course records file */
+	private volatile boolean coursesDirty;
+	/** True if the students may differ from the student records file */
+	private volatile boolean studentsDirty;
+	/** True if the faculty may differ from the faculty records file */
+	private volatile boolean facultyDirty;
+	/** True if saved files are forced to disk before they replace the old files */
+	private boolean syncOnSave;
+	/** Checks passwords against the users' stored hashes */
+	private final PasswordVerifier passwordVerifier = new PasswordVerifier();
+	/** Default time in milliseconds a session may be idle: 30 minutes */
+	public static final long DEFAULT_SESSION_TIMEOUT = 30 * 60 * 1000;
 
 	/**
 	 * Constructor for CourseManager.  It's private so that it can
@@ -45,8 +83,13 @@ public class CourseManager {
 	 */
 	private CourseManager() {
 		courses = new ArrayList<Course>();
+		courseIndex = new ConcurrentHashMap<String, Course>();
 		students = new ArrayList<Student>();
 		faculty = new ArrayList<Faculty>();
+		users = new ConcurrentHashMap<String, User>();
+		sessions = new ConcurrentHashMap<String, Session>();
+		sessionTimeout = DEFAULT_SESSION_TIMEOUT;
+		markAllDirty();
 	}
 
 	/**
@@ -72,39 +115,125 @@ public class CourseManager {
 		if (currentUser != null) {
 			return false;
 		}
-		for (Student s: students) {
-			if (s.getId().equals(id)) {
-				try {
-					MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
-					digest.update(password.getBytes());
-					String hashPW = new String(digest.digest());
-					if (s.getPassword().equals(hashPW)) {
-						currentUser = s;
-						return true;
-					}
-					return false;
-				} catch (NoSuchAlgorithmException e) {
-					throw new IllegalArgumentException();
-				}	
-			}
+		User u = getUser(id);
+		if (u == null || !checkPassword(u, password)) {
+			return false;
 		}
-		for (Faculty f: faculty) {
-			if (f.getId().equals(id)) {
-				try {
-					MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
-					digest.update(password.getBytes());
-					String hashPW = new String(digest.digest());
-					if (f.getPassword().equals(hashPW)) {
-						currentUser = f;
-						return true;
-					}
-					return false;
-				} catch (NoSuchAlgorithmException e) {
-					throw new IllegalArgumentException();
-				}	
+		currentUser = u;
+		return true;
+	}
+	
+	/**
+	 * Returns the Student or Faculty with the id.  A Student loaded lazily
+	 * is read from the student records file the first time it is looked up.
+	 * Students take precedence over Faculty with the same id.
+	 * @param id user's id
+	 * @return the user, or null if there is no user with the id
+	 * @throws IllegalArgumentException if the student records file cannot be read
+	 */
+	public User getUser(String id) {
+		if (id == null) {
+			return null;
+		}
+		User u = users.get(id);
+		StudentIndex index = studentIndex;
+		if (u instanceof Student || index == null) {
+			return u;
+		}
+		Student s;
+		try {
+			s = index.readStudent(id);
+		} catch (IOException e) {
+			throw new IllegalArgumentException(e.getMessage());
+		}
+		if (s == null) {
+			return u;
+		}
+		users.put(id, s);
+		return s;
+	}
+	
+	/**
+	 * Returns true if the password hashes to the user's stored password.
+	 * @param u user logging in
+	 * @param password plaintext password
+	 * @return true if the password matches
+	 */
+	private boolean checkPassword(User u, String password) {
+		return passwordVerifier.verify(password, u.getPassword());
+	}
+	
+	/**
+	 * Opens a new session for the user.  Any number of sessions may be
+	 * open at once, independent of the current user.
+	 * @param id user's id
+	 * @param password user's password
+	 * @return token for the new session, or null if the id or password
+	 * is incorrect
+	 */
+	public String openSession(String id, String password) {
+		User u = getUser(id);
+		if (u == null || !checkPassword(u, password)) {
+			return null;
+		}
+		String token = UUID.randomUUID().toString();
+		sessions.put(token, new Session(token, u, System.currentTimeMillis()));
+		return token;
+	}
+	
+	/**
+	 * Closes the session.  Closing an unknown session does nothing.
+	 * @param token session token
+	 */
+	public void closeSession(String token) {
+		if (token != null) {
+			sessions.remove(token);
+		}
+	}
+	
+	/**
+	 * Returns the user logged in to the session and marks the session as
+	 * used.  An expired session is closed.
+	 * @param token session token
+	 * @return the session's user
+	 * @throws IllegalArgumentException if the session is unknown or expired
+	 */
+	public User getSessionUser(String token) {
+		Session session = token == null ? null : sessions.get(token);
+		if (session == null) {
+			throw new IllegalArgumentException("User is not logged in.");
+		}
+		long now = System.currentTimeMillis();
+		if (session.isExpired(now, sessionTimeout)) {
+			sessions.remove(token, session);
+			throw new IllegalArgumentException("User is not logged in.");
+		}
+		session.touch(now);
+		return session.getUser();
+	}
+	
+	/**
+	 * Closes every session that has been idle for longer than the
+	 * session timeout.
+	 */
+	public void purgeExpiredSessions() {
+		long now = System.currentTimeMillis();
+		for (Session session : sessions.values()) {
+			if (session.isExpired(now, sessionTimeout)) {
+				sessions.remove(session.getToken(), session);
 			}
 		}
-		return false;
+	}
+	
+	/**
+	 * Sets how long a session may be idle before it expires.
+	 * @param sessionTimeout idle time in milliseconds
+	 */
+	public void setSessionTimeout(long sessionTimeout) {
+		if (sessionTimeout < 0) {
+			throw new IllegalArgumentException();
+		}
+		this.sessionTimeout = sessionTimeout;
 	}
 	
 	/**
@@ -138,8 +267,10 @@ public class CourseManager {
 	 * @return list of all Courses
 	 */
 	public Course[] listAllCourses() {
-		Course [] allCourses = new Course[courses.size()];
-		return courses.toArray(allCourses);
+		synchronized (courseLock) {
+			Course [] allCourses = new Course[courses.size()];
+			return courses.toArray(allCourses);
+		}
 	}
 	
 	/**
@@ -152,22 +283,21 @@ public class CourseManager {
 		if (currentUser == null) {
 			throw new IllegalArgumentException("User is not logged in.");
 		}
-		if (currentUser.canAddCourse(course) && currentUser instanceof Student) {
-			Student s = (Student)currentUser;
-			if (course.canEnroll(s)) {
-				currentUser.addCourse(course);
-				course.enroll(s);
-				return true;
-			}
+		return addUserToCourse(currentUser, course);
+	}
+	
+	/**
+	 * Returns true if the Course is added to the User's list of courses.
+	 * @param user User adding the course
+	 * @param course Course to add
+	 * @return true if added to the User
+	 */
+	private boolean addUserToCourse(User user, Course course) {
+		if (user instanceof Student) {
+			return enroll((Student)user, course);
 		}
-		
-		else if (currentUser.canAddCourse(course) && currentUser instanceof Faculty) {
-			Faculty f = (Faculty)currentUser;
-			if (course.canAddFaculty()) {
-				currentUser.addCourse(course);
-				course.addFaculty(f);
-				return true;
-			}
+		if (user instanceof Faculty) {
+			return assignFaculty((Faculty)user, course);
 		}
 		return false;
 	}
@@ -182,17 +312,297 @@ public class CourseManager {
 		    if (currentUser == null) {
 			    throw new IllegalArgumentException("User is not logged in.");
 		    }
-		    if (currentUser instanceof Student) {
-		        course.drop(currentUser);
-		        return currentUser.removeCourse(course);
-		    }
-            if (currentUser instanceof Faculty && currentUser.equals(course.getFaculty())) {
-			        course.removeFaculty();
-			        return currentUser.removeCourse(course);
-            	}
-		
+		    return removeUserFromCourse(currentUser, course);
+	}
+	
+	/**
+	 * Returns true if the Course is removed from the User's list of
+	 * courses.
+	 * @param user User removing the course
+	 * @param course Course to remove
+	 * @return true if removed from the User
+	 */
+	private boolean removeUserFromCourse(User user, Course course) {
+		if (user instanceof Student) {
+			return drop((Student)user, course);
+		}
+		if (user instanceof Faculty) {
+			return unassignFaculty((Faculty)user, course);
+		}
 		return false;
 	}
+	
+	/**
+	 * Returns a list of all Courses associated with the session's User.
+	 * @param token session token
+	 * @return list of User's courses
+	 */
+	public Course[] listUserCourses(String token) {
+		return getSessionUser(token).getCourses();
+	}
+	
+	/**
+	 * Returns true if the Course is added to the session User's
+	 * list of courses.
+	 * @param token session token
+	 * @param course Course to add
+	 * @return true if added to the User
+	 */
+	public boolean addUserToCourse(String token, Course course) {
+		return addUserToCourse(getSessionUser(token), course);
+	}
+	
+	/**
+	 * Returns true if the Course is removed from the session User's
+	 * list of courses.
+	 * @param token session token
+	 * @param course Course to remove
+	 * @return true if removed from the User
+	 */
+	public boolean removeUserFromCourse(String token, Course course) {
+		return removeUserFromCourse(getSessionUser(token), course);
+	}
+	
+	/**
+	 * Enrolls the student in the course if the student can add the course
+	 * and the course has room.  The course is locked before the student, so
+	 * enrollments in different courses run in parallel and the course
+	 * capacity and the student's max credits are never exceeded.  The
+	 * enrollment is journaled before it is made, and is not made if it
+	 * cannot be journaled.
+	 * @param s student to enroll
+	 * @param course course to enroll in
+	 * @return true if the student is enrolled
+	 * @throws IllegalArgumentException if the enrollment cannot be journaled
+	 */
+	public boolean enroll(Student s, Course course) {
+		return enroll(s, course, true);
+	}
+	
+	/**
+	 * Does the work of enroll(), journaling the change only if asked to.
+	 * @param s student to enroll
+	 * @param course course to enroll in
+	 * @param journaled true if the enrollment is journaled
+	 * @return true if the student is enrolled
+	 * @throws IllegalArgumentException if the enrollment cannot be journaled
+	 */
+	private boolean enroll(Student s, Course course, boolean journaled) {
+		changeLock.readLock().lock();
+		try {
+			synchronized (course) {
+				synchronized (s) {
+					if (s.canAddCourse(course) && course.canEnroll(s)) {
+						if (journaled) {
+							journalChange(JournalEntry.Type.ENROLL, s, course);
+						}
+						s.addCourse(course);
+						course.enroll(s);
+						markChanged(JournalEntry.Type.ENROLL, s);
+						return true;
+					}
+					return false;
+				}
+			}
+		} finally {
+			changeLock.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Applies many enrollment requests at once.  Requests are grouped by
+	 * course and each course is resolved and locked once for its whole
+	 * group, so the seats left are checked in a single pass.  Within a
+	 * course requests are applied in queue order.  A student whose
+	 * requests span several courses has them checked against max credits
+	 * course by course, so the set accepted can differ from a one at a time
+	 * replay of the queue.  Every request's student is looked up before any
+	 * course is locked, since reading a lazily loaded student takes seats
+	 * in other courses.
+	 * @param requests enrollment requests in queue order
+	 * @return for each request, true if the student was enrolled
+	 * @throws IllegalArgumentException if an enrollment cannot be journaled;
+	 * the requests before it are applied and the rest are not
+	 */
+	public boolean[] enrollBatch(List<EnrollmentRequest> requests) {
+		boolean[] results = new boolean[requests.size()];
+		User[] requesters = new User[requests.size()];
+		LinkedHashMap<String, ArrayList<Integer>> byCourse = new LinkedHashMap<String, ArrayList<Integer>>();
+		for (int i = 0; i < requests.size(); i++) {
+			requesters[i] = getUser(requests.get(i).getStudentId());
+			String name = requests.get(i).getCourseName();
+			ArrayList<Integer> group = byCourse.get(name);
+			if (group == null) {
+				group = new ArrayList<Integer>();
+				byCourse.put(name, group);
+			}
+			group.add(i);
+		}
+		changeLock.readLock().lock();
+		try {
+			for (Map.Entry<String, ArrayList<Integer>> entry : byCourse.entrySet()) {
+				Course course = courseIndex.get(entry.getKey());
+				if (course == null) {
+					continue;
+				}
+				synchronized (course) {
+					int seats = course.getCapacity() - course.getEnrolledCount();
+					for (int i : entry.getValue()) {
+						if (seats <= 0) {
+							break;
+						}
+						User u = requesters[i];
+						if (!(u instanceof Student)) {
+							continue;
+						}
+						Student s = (Student)u;
+						synchronized (s) {
+							if (s.canAddCourse(course) && course.canEnroll(s)) {
+								journalChange(JournalEntry.Type.ENROLL, s, course);
+								s.addCourse(course);
+								course.enroll(s);
+								markChanged(JournalEntry.Type.ENROLL, s);
+								results[i] = true;
+								seats--;
+							}
+						}
+					}
+				}
+			}
+		} finally {
+			changeLock.readLock().unlock();
+		}
+		return results;
+	}
+	
+	/**
+	 * Drops the student from the course.  Locks in the same order as
+	 * enroll(), and journals the drop before making it.
+	 * @param s student to drop
+	 * @param course course to drop
+	 * @return true if the course is removed from the student
+	 * @throws IllegalArgumentException if the drop cannot be journaled
+	 */
+	public boolean drop(Student s, Course course) {
+		return drop(s, course, true);
+	}
+	
+	/**
+	 * Does the work of drop(), journaling the change only if asked to.
+	 * @param s student to drop
+	 * @param course course to drop
+	 * @param journaled true if the drop is journaled
+	 * @return true if the course is removed from the student
+	 * @throws IllegalArgumentException if the drop cannot be journaled
+	 */
+	private boolean drop(Student s, Course course, boolean journaled) {
+		changeLock.readLock().lock();
+		try {
+			synchronized (course) {
+				synchronized (s) {
+					boolean hasCourse = s.hasCourse(course);
+					if (!hasCourse && !course.isEnrolled(s)) {
+						return false;
+					}
+					if (journaled) {
+						journalChange(JournalEntry.Type.DROP, s, course);
+					}
+					course.drop(s);
+					s.removeCourse(course);
+					markChanged(JournalEntry.Type.DROP, s);
+					return hasCourse;
+				}
+			}
+		} finally {
+			changeLock.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Makes the faculty member the professor for the course if the faculty
+	 * member can add the course and the course has no professor.  Locks in
+	 * the same order as enroll(), and journals the assignment before
+	 * making it.
+	 * @param f faculty member to assign
+	 * @param course course to teach
+	 * @return true if the faculty member is assigned
+	 * @throws IllegalArgumentException if the assignment cannot be journaled
+	 */
+	public boolean assignFaculty(Faculty f, Course course) {
+		return assignFaculty(f, course, true);
+	}
+	
+	/**
+	 * Does the work of assignFaculty(), journaling the change only if asked to.
+	 * @param f faculty member to assign
+	 * @param course course to teach
+	 * @param journaled true if the assignment is journaled
+	 * @return true if the faculty member is assigned
+	 * @throws IllegalArgumentException if the assignment cannot be journaled
+	 */
+	private boolean assignFaculty(Faculty f, Course course, boolean journaled) {
+		changeLock.readLock().lock();
+		try {
+			synchronized (course) {
+				synchronized (f) {
+					if (f.canAddCourse(course) && course.canAddFaculty()) {
+						if (journaled) {
+							journalChange(JournalEntry.Type.ASSIGN, f, course);
+						}
+						f.addCourse(course);
+						course.addFaculty(f);
+						markChanged(JournalEntry.Type.ASSIGN, f);
+						return true;
+					}
+					return false;
+				}
+			}
+		} finally {
+			changeLock.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Removes the faculty member as the professor for the course if they
+	 * are teaching it.  Locks in the same order as enroll(), and journals
+	 * the removal before making it.
+	 * @param f faculty member to remove
+	 * @param course course being taught
+	 * @return true if the course is removed from the faculty member
+	 * @throws IllegalArgumentException if the removal cannot be journaled
+	 */
+	public boolean unassignFaculty(Faculty f, Course course) {
+		return unassignFaculty(f, course, true);
+	}
+	
+	/**
+	 * Does the work of unassignFaculty(), journaling the change only if asked to.
+	 * @param f faculty member to remove
+	 * @param course course being taught
+	 * @param journaled true if the removal is journaled
+	 * @return true if the course is removed from the faculty member
+	 * @throws IllegalArgumentException if the removal cannot be journaled
+	 */
+	private boolean unassignFaculty(Faculty f, Course course, boolean journaled) {
+		changeLock.readLock().lock();
+		try {
+			synchronized (course) {
+				synchronized (f) {
+					if (f.equals(course.getFaculty())) {
+						if (journaled) {
+							journalChange(JournalEntry.Type.UNASSIGN, f, course);
+						}
+						course.removeFaculty();
+						markChanged(JournalEntry.Type.UNASSIGN, f);
+						return f.removeCourse(course);
+					}
+					return false;
+				}
+			}
+		} finally {
+			changeLock.readLock().unlock();
+		}
+	}
 
 	
 	/**
@@ -200,13 +610,56 @@ public class CourseManager {
 	 * without saving.
 	 */
 	public void clearData() {
+		closeJournal();
+		studentIndex = null;
+		compactStore = null;
 		courses = new ArrayList<Course>();
+		courseIndex = new ConcurrentHashMap<String, Course>();
 		students = new ArrayList<Student>();
 		faculty = new ArrayList<Faculty>();
+		users = new ConcurrentHashMap<String, User>();
+		sessions = new ConcurrentHashMap<String, Session>();
+		sessionTimeout = DEFAULT_SESSION_TIMEOUT;
 		currentUser = null;
 		setCourseFileName(null);
 		setStudentFileName(null);
 		setFacultyFileName(null);
+		markAllDirty();
+	}
+	
+	/**
+	 * Marks the courses, students and faculty as changed so that the next
+	 * saves write them.  Call this after changing a Course, Student or
+	 * Faculty directly instead of through the CourseManager.
+	 */
+	public void markAllDirty() {
+		coursesDirty = true;
+		studentsDirty = true;
+		facultyDirty = true;
+	}
+	
+	/**
+	 * Returns true if any courses, students or faculty have changed since
+	 * they were loaded from or saved to their records files.
+	 * @return true if there are changes to save
+	 */
+	public boolean hasUnsavedChanges() {
+		return coursesDirty || studentsDirty || facultyDirty;
+	}
+	
+	/**
+	 * Sets whether saved files are forced to disk before they replace the
+	 * old files, and whether each journaled change is forced to disk before
+	 * it is made.  Forcing is slower but keeps a save or a change through a
+	 * power loss.
+	 * @param syncOnSave true to force saved files and journaled changes to disk
+	 */
+	public void setSyncOnSave(boolean syncOnSave) {
+		this.syncOnSave = syncOnSave;
+		EnrollmentJournal j = journal;
+		if (j != null) {
+			j.setSync(syncOnSave);
+		}
 	}
 
 	/**
@@ -222,6 +675,9 @@ public class CourseManager {
 	 * @param studentFileName name of the student file
 	 */
 	public void setStudentFileName(String studentFileName) {
+		if (!Objects.equals(this.studentFileName, studentFileName)) {
+			studentsDirty = true;
+		}
 		this.studentFileName = studentFileName;
 	}
 	
@@ -230,6 +686,9 @@ public class CourseManager {
 	 * @param facultyFileName name of the faculty file
 	 */
 	public void setFacultyFileName(String facultyFileName) {
+		if (!Objects.equals(this.facultyFileName, facultyFileName)) {
+			facultyDirty = true;
+		}
 		this.facultyFileName = facultyFileName;
 	}
  
@@ -246,64 +705,224 @@ public class CourseManager {
 	 * @param courseFileName name of file with course in it
 	 */
 	public void setCourseFileName(String courseFileName) {
+		if (!Objects.equals(this.courseFileName, courseFileName)) {
+			coursesDirty = true;
+		}
 		this.courseFileName = courseFileName;
 	}
 	
 	/**
-	 * Returns a course's name
+	 * Returns the course with the given name, or null if there is no
+	 * such course in the system.
 	 * @param course name of course
-	 * @return courses.get(i);
+	 * @return the course with that name
 	 */
 	public Course getCourseByName(String course) {
-		for (int i = 0; i < courses.size(); i++) {
-			if (courses.get(i).getName().equals(course)) {
-				return courses.get(i);
-			}
-	   }
-	   return null;
+		return courseIndex.get(course);
+	}
+	
+	/**
+	 * Returns every student enrolled in the course.  Students loaded
+	 * lazily that hold a reserved seat in the course are read first, so
+	 * the roster matches the course's enrolled count.
+	 * @param course course to list
+	 * @return enrolled students
+	 * @throws IllegalArgumentException if the student records file cannot be read
+	 */
+	public Student [] getRoster(Course course) {
+		if (course.getEnrolledCount() != course.getEnrolledStudents().length) {
+			loadAllStudents();
+		}
+		return course.getEnrolledStudents();
+	}
+	
+	/**
+	 * Returns a read-only view of the courses by name.  The view may be
+	 * read from several threads at once, even while courses are added or
+	 * removed.
+	 * @return the courses by name
+	 */
+	public Map<String, Course> getCourseIndex() {
+		return Collections.unmodifiableMap(courseIndex);
 	}
 	
 	/**
 	 * accepts a file and saves it
 	 * @param studentFileName of file of students.
+	 * @return report of the lines that were skipped
 	 * @throws IllegalArgumentException if the file is invalid
 	 */
-	public void loadStudents(String studentFileName) {
+	public LoadReport loadStudents(String studentFileName) {
+		return loadStudents(studentFileName, null);
+	}
+	
+	/**
+	 * Loads the students from the given file, telling the listener how much
+	 * of the file has been read.  Interrupting the thread cancels the load
+	 * and leaves the students and courses as they were.
+	 * @param studentFileName of file of students.
+	 * @param listener listener told how much of the file has been read, or null
+	 * @return report of the lines that were skipped
+	 * @throws IllegalArgumentException if the file is invalid or the load is cancelled
+	 */
+	public LoadReport loadStudents(String studentFileName, ProgressListener listener) {
 		this.studentFileName = studentFileName;
+		LoadReport report = new LoadReport(studentFileName);
 		try{
-			ArrayList<Student> studentsFromFile = StudentRecordIO.readStudentRecords(studentFileName);
-			for (Student s : studentsFromFile) {
-				addStudent(s);
-			}
+			addStudents(StudentRecordIO.readStudentRecords(studentFileName, listener, report));
 		} catch (FileNotFoundException e) {
 			throw new IllegalArgumentException(e.getMessage());
 		}
+		return report;
 	
 	}
+	
 	/**
-	 * Adds a student to the list of students. 
-	 * @param student Student to add
+	 * Loads the students from the given file by mapping it into memory,
+	 * which is faster than loadStudents() for very large files.
+	 * @param studentFileName of file of students.
+	 * @throws IllegalArgumentException if the file is invalid
 	 */
-	public void addStudent(Student student) {
-		for (Student s: students) {
-			if (s.equals(student)) {
+	public void loadStudentsMapped(String studentFileName) {
+		this.studentFileName = studentFileName;
+		try{
+			addStudents(StudentRecordIO.readStudentRecordsMapped(studentFileName));
+		} catch (FileNotFoundException e) {
+			throw new IllegalArgumentException(e.getMessage());
+		}
+	}
+	
+	/**
+	 * Loads the students from the given file by parsing parts of it on
+	 * several threads at once, which is faster than loadStudents() for very
+	 * large files.
+	 * @param studentFileName of file of students.
+	 * @throws IllegalArgumentException if the file is invalid
+	 */
+	public void loadStudentsParallel(String studentFileName) {
+		this.studentFileName = studentFileName;
+		try{
+			addStudents(StudentRecordIO.readStudentRecordsParallel(studentFileName));
+		} catch (FileNotFoundException e) {
+			throw new IllegalArgumentException(e.getMessage());
+		}
+	}
+	
+	/**
+	 * Loads the students from the given file lazily.  Only an index of the
+	 * ids and the positions of their lines is kept in memory, and each
+	 * Student is read and enrolled in its courses the first time it logs in
+	 * or is looked up with getUser().  Seats are reserved for the other
+	 * students, so courses fill up as they would after loadStudents().  All
+	 * of the students are read before the students are saved, a snapshot is
+	 * written or a course is removed.  The file must not change until then.
+	 * A compressed file cannot be indexed, so it is loaded with
+	 * loadStudents() instead.
+	 * @param studentFileName of file of students.
+	 * @throws IllegalArgumentException if the file is invalid
+	 */
+	public void loadStudentsLazy(String studentFileName) {
+		loadAllStudents();
+		StudentIndex index;
+		try {
+			index = StudentRecordIO.indexStudentRecords(studentFileName);
+		} catch (FileNotFoundException e) {
+			throw new IllegalArgumentException(e.getMessage());
+		}
+		if (index == null) {
+			loadStudents(studentFileName);
+			return;
+		}
+		this.studentFileName = studentFileName;
+		synchronized (studentIndexLock) {
+			boolean wasEmpty = students.isEmpty();
+			studentIndexPosition = students.size();
+			studentIndex = index;
+			studentsDirty = !wasEmpty;
+		}
+	}
+	
+	/**
+	 * Reads every Student that is still waiting in the lazy index, and puts
+	 * the Students from the file into the list of Students in file order.
+	 * A Student whose id belongs to a Student added before the file was
+	 * loaded is ignored, as in addStudent().  Callers on other threads
+	 * wait until the Students are in the list, and then find no index.
+	 * @throws IllegalArgumentException if the student records file cannot be read
+	 */
+	private void loadAllStudents() {
+		if (studentIndex == null) {
+			return;
+		}
+		synchronized (studentIndexLock) {
+			StudentIndex index = studentIndex;
+			if (index == null) {
 				return;
 			}
+			List<Student> fromFile;
+			try {
+				fromFile = index.readAll();
+			} catch (IOException e) {
+				throw new IllegalArgumentException(e.getMessage());
+			}
+			ArrayList<Student> added = new ArrayList<Student>(fromFile.size());
+			for (Student s : fromFile) {
+				User u = users.get(s.getId());
+				if (u == s || !(u instanceof Student)) {
+					users.put(s.getId(), s);
+					added.add(s);
+				}
+			}
+			students.addAll(studentIndexPosition, added);
+			studentIndex = null;
+		}
+	}
+	
+	/**
+	 * Adds each student read from a file.  The students match the file
+	 * only if there were none before.
+	 * @param studentsFromFile students to add
+	 */
+	private void addStudents(List<Student> studentsFromFile) {
+		boolean wasEmpty = students.isEmpty() && studentIndex == null;
+		for (Student s : studentsFromFile) {
+			addStudent(s);
+		}
+		studentsDirty = !wasEmpty;
+	}
+	
+	/**
+	 * Adds a student to the list of students.  A student with the same id
+	 * as a student already in the system is ignored.
+	 * @param student Student to add
+	 */
+	public void addStudent(Student student) {
+		//Students take precedence over Faculty with the same id
+		if (getUser(student.getId()) instanceof Student) {
+			return;
 		}
 		students.add(student);
+		users.put(student.getId(), student);
+		studentsDirty = true;
 	}
 	
 	/**
-	 * Writes the Student records to a file.
+	 * Writes the Student records to a file if they have changed since they
+	 * were loaded or saved.  The file is replaced only once every record
+	 * has been written.  The records are gzip-compressed if the file name
+	 * ends with .gz or the file being replaced is compressed.
 	 * @throws IllegalArgumentException if CourseRecordIO cannot write the course record. 
 	 */
 	public void saveStudents() {
-		try {
-		PrintStream printStream = new PrintStream(new File(studentFileName));
-		for (int i = 0; i < students.size(); i++){
-			printStream.println(students.get(i).toString());
+		if (!studentsDirty) {
+			return;
 		}
+		loadAllStudents();
+		studentsDirty = false;
+		try {
+			StudentRecordIO.writeStudentRecords(studentFileName, students, syncOnSave);
 		} catch (IOException e) {
+			studentsDirty = true;
 			throw new IllegalArgumentException(e.getMessage());
 		}
 	}
@@ -311,41 +930,115 @@ public class CourseManager {
 	/**
 	 * Loads the list of Courses from the given file.
 	 * @param fileName name of file containing courses
+	 * @return report of the lines that were skipped
 	 */
-	public void loadCourses(String fileName) {
+	public LoadReport loadCourses(String fileName) {
+		return loadCourses(fileName, null);
+	}
+	
+	/**
+	 * Loads the list of Courses from the given file, telling the listener
+	 * how much of the file has been read.  Interrupting the thread cancels
+	 * the load and leaves the courses as they were.
+	 * @param fileName name of file containing courses
+	 * @param listener listener told how much of the file has been read, or null
+	 * @return report of the lines that were skipped
+	 * @throws IllegalArgumentException if the file is invalid or the load is cancelled
+	 */
+	public LoadReport loadCourses(String fileName, ProgressListener listener) {
 		this.courseFileName = fileName;
+		LoadReport report = new LoadReport(fileName);
 		try {
-			List<Course> coursesFromFile = CourseRecordIO.readCourseRecords(courseFileName);
+			List<Course> coursesFromFile = CourseRecordIO.readCourseRecords(courseFileName, listener, report);
+			boolean wasEmpty = courseIndex.isEmpty();
 			for (Course c : coursesFromFile) {
-				addCourse(c);
+				putCourse(c);
 			}
+			coursesDirty = !wasEmpty;
 		} catch (FileNotFoundException e) {
 			throw new IllegalArgumentException(e.getMessage());
 		}
+		return report;
 	}
 
 	/**
-	 * Adds a course to the list of courses. 
+	 * Adds a course to the list of courses.  A course with the same name
+	 * as a course already in the system is not added.  The course is
+	 * journaled before it is added.
 	 * @param course Course to add
-	 * @return true if the course already exists. 
+	 * @return true if the course is added
+	 * @throws IllegalArgumentException if the course cannot be journaled
 	 */
 	public boolean addCourse(Course course) {
-		for (Course c: courses) {
-			if (c.equals(course)) {
+		return addCourse(course, true);
+	}
+	
+	/**
+	 * Does the work of addCourse(), journaling the change only if asked to.
+	 * @param course Course to add
+	 * @param journaled true if the course is journaled
+	 * @return true if the course is added
+	 * @throws IllegalArgumentException if the course cannot be journaled
+	 */
+	private boolean addCourse(Course course, boolean journaled) {
+		changeLock.readLock().lock();
+		try {
+			synchronized (courseLock) {
+				if (courseIndex.containsKey(course.getName())) {
+					return false;
+				}
+				if (journaled) {
+					journalChange(JournalEntry.Type.ADD_COURSE, null, course);
+				}
+				putCourse(course);
+			}
+			markChanged(JournalEntry.Type.ADD_COURSE, null);
+			return true;
+		} finally {
+			changeLock.readLock().unlock();
+		}
+	}
+	
+	/**
+	 * Adds a course read from a file, without journaling it.
+	 * @param course Course to add
+	 * @return true if the course is added
+	 */
+	private boolean putCourse(Course course) {
+		synchronized (courseLock) {
+			if (courseIndex.putIfAbsent(course.getName(), course) != null) {
 				return false;
 			}
+			courses.add(course);
+			return true;
 		}
-		courses.add(course);
-		return true;
 	}
 	
 	/**
-	 * Writes the list of Courses to the courseFileName.
+	 * Returns a copy of the list of Courses that can be written while
+	 * courses are added or removed.
+	 * @return the Courses in the system
+	 */
+	private ArrayList<Course> copyCourses() {
+		synchronized (courseLock) {
+			return new ArrayList<Course>(courses);
+		}
+	}
+	
+	/**
+	 * Writes the list of Courses to the courseFileName if it has changed
+	 * since it was loaded or saved.  The records are gzip-compressed if the
+	 * file name ends with .gz or the file being replaced is compressed.
 	 */
 	public void saveCourses() {
+		if (!coursesDirty) {
+			return;
+		}
+		coursesDirty = false;
 		try {
-			CourseRecordIO.writeCourseRecords(courseFileName, courses);
+			CourseRecordIO.writeCourseRecords(courseFileName, copyCourses(), syncOnSave);
 		} catch (IOException e) {
+			coursesDirty = true;
 			throw new IllegalArgumentException(e.getMessage());
 		}
 	}
@@ -353,58 +1046,461 @@ public class CourseManager {
 	/**
 	 * Loads the list of Faculty from the given file.
 	 * @param fileName name of file containing courses
+	 * @return report of the lines that were skipped
 	 */
-	public void loadFaculty(String fileName) {
+	public LoadReport loadFaculty(String fileName) {
+		return loadFaculty(fileName, null);
+	}
+	
+	/**
+	 * Loads the list of Faculty from the given file, telling the listener
+	 * how much of the file has been read.  Interrupting the thread cancels
+	 * the load and leaves the faculty and courses as they were.
+	 * @param fileName name of file containing faculty
+	 * @param listener listener told how much of the file has been read, or null
+	 * @return report of the lines that were skipped
+	 * @throws IllegalArgumentException if the file is invalid or the load is cancelled
+	 */
+	public LoadReport loadFaculty(String fileName, ProgressListener listener) {
 		this.facultyFileName = fileName;
+		LoadReport report = new LoadReport(fileName);
 		try {
-			List<Faculty> facultyFromFile = FacultyRecordIO.readFacultyRecords(facultyFileName);
-			for (Faculty f : facultyFromFile) {
-				addFaculty(f);
-			}
+			addFacultyMembers(FacultyRecordIO.readFacultyRecords(facultyFileName, listener, report));
+		} catch (FileNotFoundException e) {
+			throw new IllegalArgumentException(e.getMessage());
+		}
+		return report;
+	}
+	
+	/**
+	 * Loads the list of Faculty from the given file by parsing parts of it
+	 * on several threads at once.
+	 * @param fileName name of file containing faculty
+	 * @throws IllegalArgumentException if the file is invalid
+	 */
+	public void loadFacultyParallel(String fileName) {
+		this.facultyFileName = fileName;
+		try {
+			addFacultyMembers(FacultyRecordIO.readFacultyRecordsParallel(facultyFileName));
+		} catch (FileNotFoundException e) {
+			throw new IllegalArgumentException(e.getMessage());
+		}
+	}
+	
+	/**
+	 * Loads the courses, students and faculty from their files at once.
+	 * The three files are parsed at the same time, then the courses are
+	 * added and the students and faculty are linked to them in one pass.
+	 * The result is the same as loadCourses(), loadStudents() and
+	 * loadFaculty() one after another, but the files are read in about the
+	 * time of the slowest one.  If a file cannot be read, nothing is loaded.
+	 * @param courseFileName name of file containing courses
+	 * @param studentFileName name of file containing students
+	 * @param facultyFileName name of file containing faculty
+	 * @return reports of the lines skipped in the course, student and faculty files
+	 * @throws IllegalArgumentException if a file is invalid or the load is interrupted
+	 */
+	public List<LoadReport> loadAll(String courseFileName, String studentFileName, String facultyFileName) {
+		RecordFiles files;
+		try {
+			files = RecordFiles.read(courseFileName, studentFileName, facultyFileName);
+		} catch (FileNotFoundException e) {
+			throw new IllegalArgumentException(e.getMessage());
+		}
+		this.courseFileName = courseFileName;
+		this.studentFileName = studentFileName;
+		this.facultyFileName = facultyFileName;
+		boolean wasEmpty = courseIndex.isEmpty();
+		for (Course c : files.getCourses()) {
+			putCourse(c);
+		}
+		coursesDirty = !wasEmpty;
+		files.link(courseIndex);
+		addStudents(files.getStudents());
+		addFacultyMembers(files.getFaculty());
+		return Arrays.asList(files.getCourseReport(), files.getStudentReport(), files.getFacultyReport());
+	}
+
+	/**
+	 * Replaces all courses and users with a read-only CompactStore of the
+	 * three files, for institutions too large to hold as Course, Student
+	 * and Faculty objects.  Afterwards the system has no Course, Student or
+	 * Faculty objects; the data is read through getCompactStore() until
+	 * clearData() is called.  The record file names are cleared, so the
+	 * empty lists cannot be saved over the files.
+	 * @param courseFileName name of file containing courses
+	 * @param studentFileName name of file containing students
+	 * @param facultyFileName name of file containing faculty
+	 * @return the store
+	 * @throws IllegalArgumentException if a file cannot be read
+	 */
+	public CompactStore loadCompact(String courseFileName, String studentFileName, String facultyFileName) {
+		CompactStore store;
+		try {
+			store = CompactStore.read(courseFileName, studentFileName, facultyFileName);
 		} catch (FileNotFoundException e) {
 			throw new IllegalArgumentException(e.getMessage());
 		}
+		clearData();
+		compactStore = store;
+		return store;
+	}
+
+	/**
+	 * Returns the store loaded with loadCompact().
+	 * @return the store, or null if the data was not loaded with loadCompact()
+	 */
+	public CompactStore getCompactStore() {
+		return compactStore;
+	}
+
+	/**
+	 * Adds each faculty member read from a file.  The faculty match the
+	 * file only if there were none before.
+	 * @param facultyFromFile faculty to add
+	 */
+	private void addFacultyMembers(List<Faculty> facultyFromFile) {
+		boolean wasEmpty = faculty.isEmpty();
+		for (Faculty f : facultyFromFile) {
+			addFaculty(f);
+		}
+		facultyDirty = !wasEmpty;
 	}
 	
 	
 	/**
-	 * Writes the faculty records to a file.
+	 * Writes the faculty records to a file if they have changed since they
+	 * were loaded or saved.  The records are gzip-compressed if the file
+	 * name ends with .gz or the file being replaced is compressed.
 	 * @throws IllegalArgumentException if CourseRecordIO cannot write the course record. 
 	 */
 	public void saveFaculty() {
+		if (!facultyDirty) {
+			return;
+		}
+		facultyDirty = false;
 		try {
-		PrintStream printStream = new PrintStream(new File(facultyFileName));
-		for (int i = 0; i < faculty.size(); i++){
-			printStream.println(faculty.get(i).toString());
+			FacultyRecordIO.writeFacultyRecords(facultyFileName, faculty, syncOnSave);
+		} catch (IOException e) {
+			facultyDirty = true;
+			throw new IllegalArgumentException(e.getMessage());
 		}
+	}
+
+	/**
+	 * Writes the courses, students, faculty, enrollments and faculty
+	 * assignments to a binary snapshot file.
+	 * @param fileName name of the snapshot file
+	 * @throws IllegalArgumentException if the snapshot cannot be written
+	 */
+	public void saveSnapshot(String fileName) {
+		loadAllStudents();
+		try {
+			SnapshotIO.writeSnapshot(fileName, copyCourses(), students, faculty, syncOnSave);
 		} catch (IOException e) {
 			throw new IllegalArgumentException(e.getMessage());
 		}
 	}
 
+	/**
+	 * Replaces all courses and users with the ones in a snapshot file
+	 * written by saveSnapshot().  Everyone is logged out, and the record
+	 * file names are kept so the data can still be saved to them.
+	 * @param fileName name of the snapshot file
+	 * @throws IllegalArgumentException if the file cannot be read or is not a snapshot
+	 */
+	public void loadSnapshot(String fileName) {
+		Snapshot snapshot;
+		try {
+			snapshot = SnapshotIO.readSnapshot(fileName);
+		} catch (IOException e) {
+			throw new IllegalArgumentException(e.getMessage());
+		}
+		String courseFile = courseFileName;
+		String studentFile = studentFileName;
+		String facultyFile = facultyFileName;
+		clearData();
+		courseFileName = courseFile;
+		studentFileName = studentFile;
+		facultyFileName = facultyFile;
+		for (Course c : snapshot.getCourses()) {
+			putCourse(c);
+		}
+		addStudents(snapshot.getStudents());
+		addFacultyMembers(snapshot.getFaculty());
+		markAllDirty();
+	}
+
 	/**
 	 * Adds a faculty member to a course
 	 * @param f faculty member to be added
 	 */
     public void addFaculty(Faculty f) {
 				faculty.add(f);
+				if (!users.containsKey(f.getId())) {
+					users.put(f.getId(), f);
+				}
+				facultyDirty = true;
 			}
     
     /**
-     * REmoves a course.
+     * Removes a course from the system.  The course is removed from its
+     * faculty member and from every student on its roster.  A course that
+     * is not in the system is left as it is.  The course is locked for the
+     * whole removal, so no one enrolls in it while its roster is dropped.
      * @param c course
-     * @return courses.remove(c)
+     * @return true if the course was in the system and is removed
+     * @throws IllegalArgumentException if a change cannot be journaled;
+     * the drops journaled before it are kept and the course stays
      */
-    
     public boolean removeCourse(Course c) {
+		return removeCourse(c, true);
+	}
+
+	/**
+	 * Does the work of removeCourse(), journaling the changes only if asked to.
+	 * @param c course
+	 * @param journaled true if the removal and its drops are journaled
+	 * @return true if the course was in the system and is removed
+	 * @throws IllegalArgumentException if a change cannot be journaled
+	 */
+	private boolean removeCourse(Course c, boolean journaled) {
 		if (c == null) return false; 
-        if (c.getFaculty() != null) {
-        	c.getFaculty().removeCourse(c);   
-        }
-        for (int i = 0; i < students.size(); i++){
-			c.drop(students.get(i));
+		changeLock.readLock().lock();
+		try {
+			c = courseIndex.get(c.getName());
+			if (c == null) {
+				return false;
+			}
+			loadAllStudents();
+			synchronized (c) {
+				if (c.getFaculty() != null) {
+					unassignFaculty(c.getFaculty(), c, journaled);
+				}
+				for (Student s : c.getEnrolledStudents()) {
+					drop(s, c, journaled);
+				}
+				synchronized (courseLock) {
+					if (courseIndex.get(c.getName()) != c) {
+						return false;
+					}
+					if (journaled) {
+						journalChange(JournalEntry.Type.REMOVE_COURSE, null, c);
+					}
+					courses.remove(c);
+					courseIndex.remove(c.getName());
+				}
+			}
+			markChanged(JournalEntry.Type.REMOVE_COURSE, null);
+			return true;
+		} finally {
+			changeLock.readLock().unlock();
 		}
-		return courses.remove(c);	
 	}
 
+	/**
+	 * Starts appending every enrollment, drop, course change and faculty
+	 * assignment to the journal file.  Changes made by loading record
+	 * files or a snapshot are not journaled, so the journal should be
+	 * opened after loading and emptied by checkpoint().
+	 * @param fileName name of the journal file
+	 * @throws IllegalArgumentException if the journal cannot be opened
+	 */
+	public void openJournal(String fileName) {
+		closeJournal();
+		try {
+			EnrollmentJournal opened = new EnrollmentJournal(fileName);
+			opened.setSync(syncOnSave);
+			journal = opened;
+		} catch (IOException e) {
+			throw new IllegalArgumentException(e.getMessage());
+		}
+	}
+	
+	/**
+	 * Stops journaling changes.
+	 * @throws IllegalArgumentException if the journal cannot be closed
+	 */
+	public void closeJournal() {
+		if (journal == null) {
+			return;
+		}
+		try {
+			journal.close();
+		} catch (IOException e) {
+			throw new IllegalArgumentException(e.getMessage());
+		} finally {
+			journal = null;
+		}
+	}
+	
+	/**
+	 * Saves a snapshot and empties the journal, since the snapshot now
+	 * holds its changes.  Changes from other sessions wait until the
+	 * checkpoint is done, so none is lost between the snapshot and the
+	 * journal being emptied.
+	 * @param snapshotFileName name of the snapshot file
+	 * @throws IllegalArgumentException if the snapshot cannot be written or
+	 * the journal cannot be emptied
+	 */
+	public void checkpoint(String snapshotFileName) {
+		changeLock.writeLock().lock();
+		try {
+			saveSnapshot(snapshotFileName);
+			EnrollmentJournal j = journal;
+			if (j != null) {
+				try {
+					j.truncate();
+				} catch (IOException e) {
+					throw new IllegalArgumentException(e.getMessage());
+				}
+			}
+		} finally {
+			changeLock.writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * Restores the data from a snapshot and the journal of changes made
+	 * after it, then keeps journaling new changes to the same journal.
+	 * @param snapshotFileName name of the snapshot file
+	 * @param journalFileName name of the journal file
+	 * @throws IllegalArgumentException if either file cannot be read
+	 */
+	public void recover(String snapshotFileName, String journalFileName) {
+		loadSnapshot(snapshotFileName);
+		if (new File(journalFileName).exists()) {
+			replayJournal(journalFileName);
+		}
+		openJournal(journalFileName);
+	}
+	
+	/**
+	 * Applies the changes in a journal file to the current data.  Changes
+	 * to users or courses that don't exist are skipped.  The replayed
+	 * changes are not journaled again.  Changes from other sessions wait
+	 * until the replay is done, so they are journaled after it.
+	 * @param fileName name of the journal file
+	 * @throws IllegalArgumentException if the file cannot be read
+	 */
+	public void replayJournal(String fileName) {
+		List<JournalEntry> entries;
+		try {
+			entries = EnrollmentJournal.readJournal(fileName);
+		} catch (FileNotFoundException e) {
+			throw new IllegalArgumentException(e.getMessage());
+		}
+		changeLock.writeLock().lock();
+		try {
+			for (JournalEntry entry : entries) {
+				apply(entry);
+			}
+		} finally {
+			changeLock.writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * Applies one journaled change without journaling it again.
+	 * @param entry change to apply
+	 */
+	private void apply(JournalEntry entry) {
+		if (entry.getType() == JournalEntry.Type.ADD_COURSE) {
+			addCourse(new Course(entry.getCourseName(), entry.getCredits(), entry.getCapacity()), false);
+			return;
+		}
+		Course c = courseIndex.get(entry.getCourseName());
+		if (c == null) {
+			return;
+		}
+		switch (entry.getType()) {
+		case REMOVE_COURSE:
+			removeCourse(c, false);
+			break;
+		case ENROLL:
+		case DROP:
+			User u = getUser(entry.getUserId());
+			if (u instanceof Student) {
+				if (entry.getType() == JournalEntry.Type.ENROLL) {
+					enroll((Student) u, c, false);
+				} else {
+					drop((Student) u, c, false);
+				}
+			}
+			break;
+		default:
+			Faculty f = findFaculty(entry.getUserId());
+			if (f != null) {
+				if (entry.getType() == JournalEntry.Type.ASSIGN) {
+					assignFaculty(f, c, false);
+				} else {
+					unassignFaculty(f, c, false);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Returns the faculty member with the id.  A faculty member may share
+	 * an id with a student, so the list is searched when the directory
+	 * holds a student.
+	 * @param id id of the faculty member
+	 * @return the faculty member, or null if there is none
+	 */
+	private Faculty findFaculty(String id) {
+		User u = users.get(id);
+		if (u instanceof Faculty) {
+			return (Faculty) u;
+		}
+		for (Faculty f : faculty) {
+			if (f.getId().equals(id)) {
+				return f;
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Appends a change to the journal if changes are being journaled.  It
+	 * is called before the change is made, with the locks that the change
+	 * needs held, so a change is only made once it is in the journal.
+	 * @param type kind of change
+	 * @param u user whose courses change, or null for a course change
+	 * @param course course that changes
+	 * @throws IllegalArgumentException if the change cannot be written
+	 */
+	private void journalChange(JournalEntry.Type type, User u, Course course) {
+		EnrollmentJournal j = journal;
+		if (j == null) {
+			return;
+		}
+		try {
+			if (type == JournalEntry.Type.ADD_COURSE) {
+				j.addCourse(course);
+			} else if (type == JournalEntry.Type.REMOVE_COURSE) {
+				j.removeCourse(course.getName());
+			} else {
+				j.append(type, u.getId(), course.getName());
+			}
+		} catch (IOException e) {
+			throw new IllegalArgumentException(e.getMessage());
+		}
+	}
+	
+	/**
+	 * Marks the records that a change affected as dirty.  It is called
+	 * after the change is made, so a save that starts before the change
+	 * still leaves the records dirty.
+	 * @param type kind of change
+	 * @param u user whose courses changed, or null for a course change
+	 */
+	private void markChanged(JournalEntry.Type type, User u) {
+		if (type == JournalEntry.Type.ADD_COURSE || type == JournalEntry.Type.REMOVE_COURSE) {
+			coursesDirty = true;
+		} else if (u instanceof Student) {
+			studentsDirty = true;
+		} else {
+			facultyDirty = true;
+		}
+	}
 }
@@ -0,0 +1,52 @@
+package edu.ncsu.csc216.course_manager.manager;
+
+/**
+ * A queued request to enroll a student in a course, identified by the
+ * student's id and the course's name.
+ * @author sarahweaver
+ *
+ */
+public class EnrollmentRequest {
+	/** Id of the student to enroll */
+	private final String studentId;
+	/** Name of the course to enroll in */
+	private final String courseName;
+
+	/**
+	 * Creates an enrollment request.
+	 * @param studentId id of the student to enroll
+	 * @param courseName name of the course to enroll in
+	 */
+	public EnrollmentRequest(String studentId, String courseName) {
+		if (studentId == null || courseName == null) {
+			throw new IllegalArgumentException();
+		}
+		this.studentId = studentId;
+		this.courseName = courseName;
+	}
+
+	/**
+	 * Returns the id of the student to enroll.
+	 * @return the student id
+	 */
+	public String getStudentId() {
+		return studentId;
+	}
+
+	/**
+	 * Returns the name of the course to enroll in.
+	 * @return the course name
+	 */
+	public String getCourseName() {
+		return courseName;
+	}
+
+	/**
+	 * Returns a string of the request's student id and course name.
+	 * @return the request as a string
+	 */
+	@Override
+	public String toString() {
+		return studentId + "," + courseName;
+	}
+}
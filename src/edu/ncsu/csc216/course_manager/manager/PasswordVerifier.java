@@ -0,0 +1,106 @@
+package edu.ncsu.csc216.course_manager.manager;
+
+import java.nio.charset.Charset;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Checks plaintext passwords against stored password hashes.  A stored
+ * hash is the SHA-256 digest of the password decoded as a String with the
+ * platform charset, which is what the record files contain.  That decoding
+ * is lossy, so candidate passwords are hashed into the same form rather
+ * than decoding the stored hash back to raw bytes.
+ *
+ * Each thread keeps its own MessageDigest and digest buffer, so a check
+ * does not look up the digest provider.  The comparison always looks at
+ * every character so that its timing does not depend on how much of the
+ * hash matches.
+ * @author sarahweaver
+ *
+ */
+public class PasswordVerifier {
+	/** Hashing algorithm */
+	private static final String HASH_ALGORITHM = "SHA-256";
+
+	/** Charset used to encode passwords and decode hashes */
+	private final Charset charset;
+	/** Digest and buffer for each thread */
+	private final ThreadLocal<State> state = new ThreadLocal<State>() {
+		@Override
+		protected State initialValue() {
+			return new State();
+		}
+	};
+
+	/**
+	 * Creates a verifier that uses the platform charset, matching
+	 * String.getBytes() and new String(byte[]).
+	 */
+	public PasswordVerifier() {
+		this(Charset.defaultCharset());
+	}
+
+	/**
+	 * Creates a verifier that uses the given charset.
+	 * @param charset charset used to encode passwords and decode hashes
+	 */
+	public PasswordVerifier(Charset charset) {
+		this.charset = charset;
+	}
+
+	/**
+	 * Returns true if the password hashes to the stored hash.
+	 * @param password plaintext password
+	 * @param storedHash hashed password of the user
+	 * @return true if the password matches
+	 */
+	public boolean verify(String password, String storedHash) {
+		String hash = hash(password);
+		int length = hash.length();
+		int diff = length ^ storedHash.length();
+		for (int i = 0; i < length; i++) {
+			char stored = i < storedHash.length() ? storedHash.charAt(i) : 0;
+			diff |= hash.charAt(i) ^ stored;
+		}
+		return diff == 0;
+	}
+
+	/**
+	 * Returns the stored form of the password's hash.
+	 * @param password plaintext password
+	 * @return hashed password
+	 */
+	public String hash(String password) {
+		State s = state.get();
+		s.digest.update(password.getBytes(charset));
+		try {
+			s.digest.digest(s.raw, 0, s.raw.length);
+		} catch (DigestException e) {
+			throw new IllegalArgumentException();
+		}
+		return new String(s.raw, charset);
+	}
+
+	/**
+	 * Digest and digest buffer owned by one thread.
+	 */
+	private static class State {
+		/** Digest for the hashing algorithm */
+		private final MessageDigest digest;
+		/** Raw digest bytes */
+		private final byte[] raw;
+
+		/**
+		 * Creates the digest and buffer.
+		 */
+		State() {
+			try {
+				digest = MessageDigest.getInstance(HASH_ALGORITHM);
+			} catch (NoSuchAlgorithmException e) {
+				throw new IllegalArgumentException();
+			}
+			raw = new byte[digest.getDigestLength()];
+		}
+	}
+}
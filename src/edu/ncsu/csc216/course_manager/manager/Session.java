@@ -0,0 +1,73 @@
+package edu.ncsu.csc216.course_manager.manager;
+
+import edu.ncsu.csc216.course_manager.users.User;
+
+/**
+ * A logged in User's session with the CourseManager.  Each session is
+ * identified by a random token and remembers when it was last used so
+ * that idle sessions can expire.
+ * @author sarahweaver
+ *
+ */
+public class Session {
+	/** Token identifying the session */
+	private final String token;
+	/** User logged in to the session */
+	private final User user;
+	/** Time the session was last used, in milliseconds */
+	private volatile long lastAccess;
+
+	/**
+	 * Creates a session for the user.
+	 * @param token token identifying the session
+	 * @param user user logged in to the session
+	 * @param now current time in milliseconds
+	 */
+	Session(String token, User user, long now) {
+		this.token = token;
+		this.user = user;
+		this.lastAccess = now;
+	}
+
+	/**
+	 * Returns the token identifying the session.
+	 * @return the token
+	 */
+	public String getToken() {
+		return token;
+	}
+
+	/**
+	 * Returns the user logged in to the session.
+	 * @return the user
+	 */
+	public User getUser() {
+		return user;
+	}
+
+	/**
+	 * Returns the time the session was last used.
+	 * @return last access time in milliseconds
+	 */
+	public long getLastAccess() {
+		return lastAccess;
+	}
+
+	/**
+	 * Returns true if the session has been idle for at least the timeout.
+	 * @param now current time in milliseconds
+	 * @param timeout idle timeout in milliseconds
+	 * @return true if the session has expired
+	 */
+	boolean isExpired(long now, long timeout) {
+		return now - lastAccess >= timeout;
+	}
+
+	/**
+	 * Records that the session was used.
+	 * @param now current time in milliseconds
+	 */
+	void touch(long now) {
+		lastAccess = now;
+	}
+}
@@ -10,7 +10,10 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.awt.event.WindowAdapter;
 import java.awt.event.WindowEvent;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.io.File;
+import java.util.concurrent.ExecutionException;
 
 import javax.swing.DefaultListModel;
 import javax.swing.JButton;
@@ -22,16 +25,19 @@ import javax.swing.JList;
 import javax.swing.JOptionPane;
 import javax.swing.JPanel;
 import javax.swing.JPasswordField;
+import javax.swing.JProgressBar;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 import javax.swing.JTextField;
 import javax.swing.ListCellRenderer;
 import javax.swing.ListSelectionModel;
 import javax.swing.ScrollPaneConstants;
+import javax.swing.SwingWorker;
 import javax.swing.event.ListSelectionEvent;
 import javax.swing.event.ListSelectionListener;
 
 import edu.ncsu.csc216.course_manager.courses.Course;
+import edu.ncsu.csc216.course_manager.io.ProgressListener;
 import edu.ncsu.csc216.course_manager.manager.CourseManager;
 import edu.ncsu.csc216.course_manager.users.Faculty;
 import edu.ncsu.csc216.course_manager.users.Student;
@@ -167,6 +173,12 @@ public class CourseManagerGUI extends JFrame {
 		
 		/** Reset Button */
 		private JButton btnReset;
+		/** Cancel button for the file being loaded */
+		private JButton btnCancel;
+		/** Progress of the file being loaded */
+		private JProgressBar progressBar;
+		/** Worker loading a file, or null if no file is loading */
+		private LoadWorker worker;
 		
 		/** FileName for course records file */
 		private String courseFileName;
@@ -355,6 +367,28 @@ public class CourseManagerGUI extends JFrame {
 			add(btnReset, c);
 			btnReset.addActionListener(this);
 			
+			//Cancel button for a load in progress
+			btnCancel = new JButton("Cancel");
+			c.gridx = 1;
+			c.gridy = 12;
+			c.gridwidth = 1;
+			c.weightx = 1.0;
+			c.anchor = GridBagConstraints.FIRST_LINE_START;
+			c.fill = GridBagConstraints.RELATIVE;
+			add(btnCancel, c);
+			btnCancel.addActionListener(this);
+			btnCancel.setEnabled(false);
+			
+			//Progress of a load, by bytes read
+			progressBar = new JProgressBar(0, 100);
+			c.gridx = 0;
+			c.gridy = 13;
+			c.gridwidth = 2;
+			c.weightx = 0.0;
+			c.anchor = GridBagConstraints.FIRST_LINE_START;
+			c.fill = GridBagConstraints.HORIZONTAL;
+			add(progressBar, c);
+			
 		}
 
 		/**
@@ -375,29 +409,7 @@ public class CourseManagerGUI extends JFrame {
 				btnBrowseFacultyRecords.setEnabled(false);
 				btnLoadFacultyRecords.setEnabled(false);
 			} else if (e.getSource() == btnLoadCourseRecords) {
-				try {
-					manager.loadCourses(courseFileName);
-					
-					//Reset buttons
-					btnBrowseCourseRecords.setEnabled(false);
-					btnLoadCourseRecords.setEnabled(false);
-					btnBrowseStudentRecords.setEnabled(true);
-					btnLoadStudentRecords.setEnabled(false);
-					btnBrowseFacultyRecords.setEnabled(false);
-					btnLoadFacultyRecords.setEnabled(false);
-				} catch (IllegalArgumentException iae) {
-					JOptionPane.showMessageDialog(this, iae.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-					
-					//Reset buttons
-					btnBrowseCourseRecords.setEnabled(true);
-					btnLoadCourseRecords.setEnabled(false);
-					btnBrowseStudentRecords.setEnabled(false);
-					btnLoadStudentRecords.setEnabled(false);
-					btnBrowseFacultyRecords.setEnabled(false);
-					btnLoadFacultyRecords.setEnabled(false);
-					
-					txtCourseRecords.setText("");
-				}				
+				startLoad(btnLoadCourseRecords, courseFileName);
 			} else if (e.getSource() == btnBrowseStudentRecords) {
 				studentFileName = getFileName();
 				txtStudentRecords.setText(studentFileName);
@@ -410,28 +422,7 @@ public class CourseManagerGUI extends JFrame {
 				btnBrowseFacultyRecords.setEnabled(false);
 				btnLoadFacultyRecords.setEnabled(false);
 			} else if (e.getSource() == btnLoadStudentRecords) {
-				try {
-					manager.loadStudents(studentFileName);
-					
-					btnBrowseCourseRecords.setEnabled(false);
-					btnLoadCourseRecords.setEnabled(false);
-					btnBrowseStudentRecords.setEnabled(false);
-					btnLoadStudentRecords.setEnabled(false);
-					btnBrowseFacultyRecords.setEnabled(true);
-					btnLoadFacultyRecords.setEnabled(false);
-				} catch (IllegalArgumentException iae) {
-					JOptionPane.showMessageDialog(this, iae.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-					
-					//Reset buttons
-					btnBrowseCourseRecords.setEnabled(false);
-					btnLoadCourseRecords.setEnabled(false);
-					btnBrowseStudentRecords.setEnabled(true);
-					btnLoadStudentRecords.setEnabled(false);
-					btnBrowseFacultyRecords.setEnabled(false);
-					btnLoadFacultyRecords.setEnabled(false);
-					
-					txtStudentRecords.setText("");
-				}
+				startLoad(btnLoadStudentRecords, studentFileName);
 			} else if (e.getSource() == btnBrowseFacultyRecords) {
 				facultyFileName = getFileName();
 				txtFacultyRecords.setText(facultyFileName);
@@ -444,28 +435,17 @@ public class CourseManagerGUI extends JFrame {
 				btnBrowseFacultyRecords.setEnabled(false);
 				btnLoadFacultyRecords.setEnabled(true);
 			} else if (e.getSource() == btnLoadFacultyRecords) {
-				try {
-					manager.loadFaculty(facultyFileName);
-				
-					cardLayout.show(panel, LOGIN_PANEL);
-				} catch (IllegalArgumentException iae) {
-					JOptionPane.showMessageDialog(this, iae.getMessage(), "Error", JOptionPane.ERROR_MESSAGE);
-					
-					//Reset buttons
-					btnBrowseCourseRecords.setEnabled(false);
-					btnLoadCourseRecords.setEnabled(false);
-					btnBrowseStudentRecords.setEnabled(false);
-					btnLoadStudentRecords.setEnabled(false);
-					btnBrowseFacultyRecords.setEnabled(true);
-					btnLoadFacultyRecords.setEnabled(false);
-					
-					txtFacultyRecords.setText("");
+				startLoad(btnLoadFacultyRecords, facultyFileName);
+			} else if (e.getSource() == btnCancel) {
+				if (worker != null) {
+					worker.stop();
 				}
 			} else if (e.getSource() == btnReset) {
 				manager.clearData();
 				txtCourseRecords.setText("");
 				txtStudentRecords.setText("");
 				txtFacultyRecords.setText("");
+				progressBar.setValue(0);
 				
 				//Reset buttons
 				btnBrowseCourseRecords.setEnabled(true);
@@ -477,6 +457,77 @@ public class CourseManagerGUI extends JFrame {
 			}
 		}
 		
+		/**
+		 * Starts loading a file on a background worker.  Every button but
+		 * Cancel is disabled until the load finishes.
+		 * @param source Load button that was selected
+		 * @param fileName name of the file to load
+		 */
+		private void startLoad(JButton source, String fileName) {
+			btnBrowseCourseRecords.setEnabled(false);
+			btnLoadCourseRecords.setEnabled(false);
+			btnBrowseStudentRecords.setEnabled(false);
+			btnLoadStudentRecords.setEnabled(false);
+			btnBrowseFacultyRecords.setEnabled(false);
+			btnLoadFacultyRecords.setEnabled(false);
+			btnReset.setEnabled(false);
+			btnCancel.setEnabled(true);
+			progressBar.setValue(0);
+			
+			worker = new LoadWorker(source, fileName);
+			worker.addPropertyChangeListener(new PropertyChangeListener() {
+				/**
+				 * Moves the progress bar as the worker reports progress.
+				 * @param evt the changed property
+				 */
+				@Override
+				public void propertyChange(PropertyChangeEvent evt) {
+					if ("progress".equals(evt.getPropertyName())) {
+						progressBar.setValue((Integer) evt.getNewValue());
+					}
+				}
+			});
+			worker.execute();
+		}
+		
+		/**
+		 * Sets the buttons for the next step once a load has finished.
+		 * @param source Load button that started the load
+		 * @param loaded true if the file was loaded
+		 * @param error message to show if the load failed, or null if it was cancelled
+		 */
+		private void loadFinished(JButton source, boolean loaded, String error) {
+			worker = null;
+			btnReset.setEnabled(true);
+			btnCancel.setEnabled(false);
+			if (!loaded && error != null) {
+				JOptionPane.showMessageDialog(this, error, "Error", JOptionPane.ERROR_MESSAGE);
+			}
+			if (!loaded) {
+				progressBar.setValue(0);
+			}
+			
+			//Reset buttons
+			btnBrowseCourseRecords.setEnabled(!loaded && source == btnLoadCourseRecords);
+			btnLoadCourseRecords.setEnabled(false);
+			btnBrowseStudentRecords.setEnabled(loaded ? source == btnLoadCourseRecords
+					: source == btnLoadStudentRecords);
+			btnLoadStudentRecords.setEnabled(false);
+			btnBrowseFacultyRecords.setEnabled(loaded ? source == btnLoadStudentRecords
+					: source == btnLoadFacultyRecords);
+			btnLoadFacultyRecords.setEnabled(false);
+			
+			if (!loaded && source == btnLoadCourseRecords) {
+				txtCourseRecords.setText("");
+			} else if (!loaded && source == btnLoadStudentRecords) {
+				txtStudentRecords.setText("");
+			} else if (!loaded) {
+				txtFacultyRecords.setText("");
+			} else if (source == btnLoadFacultyRecords) {
+				cardLayout.show(panel, LOGIN_PANEL);
+			}
+		}
+		
 		/**
 		 * Returns a file name generated through interactions with a {@link JFileChooser}
 		 * object.
@@ -493,6 +544,103 @@ public class CourseManagerGUI extends JFrame {
 			return gameFile.getAbsolutePath();
 		}
 		
+		/**
+		 * Loads one records file off of the event thread, reporting progress
+		 * as the percent of the file's bytes read.  stop() cancels the load
+		 * by interrupting the worker's thread, and done() runs only once the
+		 * load has stopped, so the CourseManager is never left half loaded.
+		 */
+		private class LoadWorker extends SwingWorker<Void, Void> implements ProgressListener {
+			/** Load button that started the load */
+			private final JButton source;
+			/** Name of the file to load */
+			private final String fileName;
+			/** Thread running the load, or null if it is not running */
+			private Thread thread;
+			/** True once the user has asked to cancel the load */
+			private boolean stopped;
+			
+			/**
+			 * Creates a worker to load the file.
+			 * @param source Load button that was selected
+			 * @param fileName name of the file to load
+			 */
+			LoadWorker(JButton source, String fileName) {
+				this.source = source;
+				this.fileName = fileName;
+			}
+			
+			/**
+			 * Loads the file with the CourseManager.
+			 * @return nothing
+			 */
+			@Override
+			protected Void doInBackground() {
+				synchronized (this) {
+					if (stopped) {
+						throw new IllegalArgumentException("Load cancelled.");
+					}
+					thread = Thread.currentThread();
+				}
+				try {
+					if (source == btnLoadCourseRecords) {
+						manager.loadCourses(fileName, this);
+					} else if (source == btnLoadStudentRecords) {
+						manager.loadStudents(fileName, this);
+					} else {
+						manager.loadFaculty(fileName, this);
+					}
+				} finally {
+					synchronized (this) {
+						thread = null;
+						//Clear an interrupt so it doesn't reach the worker's next task
+						Thread.interrupted();
+					}
+				}
+				return null;
+			}
+			
+			/**
+			 * Reports the percent of the file read.
+			 * @param bytesRead number of bytes read so far
+			 * @param totalBytes size of the file in bytes
+			 */
+			@Override
+			public void progress(long bytesRead, long totalBytes) {
+				setProgress(totalBytes <= 0 ? 100 : (int) Math.min(100, 100 * bytesRead / totalBytes));
+			}
+			
+			/**
+			 * Cancels the load if it is still running.
+			 */
+			synchronized void stop() {
+				stopped = true;
+				if (thread != null) {
+					thread.interrupt();
+				}
+			}
+			
+			/**
+			 * Sets the buttons for the outcome of the load.  A load that
+			 * finished before it could be cancelled counts as loaded.
+			 */
+			@Override
+			protected void done() {
+				try {
+					get();
+					loadFinished(source, true, null);
+				} catch (InterruptedException e) {
+					loadFinished(source, false, e.getMessage());
+				} catch (ExecutionException e) {
+					boolean cancelled;
+					synchronized (this) {
+						cancelled = stopped;
+					}
+					loadFinished(source, false, cancelled ? null : e.getCause().getMessage());
+				}
+			}
+		}
+		
 	}
 	
 	/**
@@ -830,7 +978,7 @@ public class CourseManagerGUI extends JFrame {
 					builder.append("Instructor: Staff\n");
 				}
 				builder.append("Credits: " + c.getCredits() + "\n");
-				builder.append("# Enrolled: " + c.getEnrolledStudents().length + "\n");
+				builder.append("# Enrolled: " + c.getEnrolledCount() + "\n");
 				builder.append("Capacity: " + c.getCapacity());
 				txtCourseDetails.setText(builder.toString());
 			}
@@ -1222,12 +1370,12 @@ public class CourseManagerGUI extends JFrame {
 					builder.append("Instructor: Staff\n");
 				}
 				builder.append("Credits: " + c.getCredits() + "\n");
-				builder.append("# Enrolled: " + c.getEnrolledStudents().length + "\n");
+				builder.append("# Enrolled: " + c.getEnrolledCount() + "\n");
 				builder.append("Capacity: " + c.getCapacity());
 				txtCourseDetails.setText(builder.toString());
 				
 				StringBuilder roll = new StringBuilder();
-				Student [] students = c.getEnrolledStudents();
+				Student [] students = manager.getRoster(c);
 				for (int i = 0; i < students.length; i++) {
 					roll.append(students[i].getFirstName());
 					roll.append(" ");
@@ -8,7 +8,8 @@ import java.util.ArrayList;
 import edu.ncsu.csc216.course_manager.courses.Course;
 
 /**
- * Class that describes the faculty user 
+ * Class that describes the faculty user.  Course list changes synchronize
+ * on the Faculty.
  * @author sarahweaver
  *
  */
@@ -39,13 +40,32 @@ public class Faculty extends User {
 		courses = new ArrayList<Course>();
 	}
 
+	/**
+	 * Returns why the fields cannot make a Faculty, or null if they can.
+	 * @param firstName faculty's first name
+	 * @param lastName faculty's last name
+	 * @param id faculty's id
+	 * @param email faculty's email
+	 * @param password faculty's hashed password
+	 * @param maxCourses faculty's max courses
+	 * @return the reason the fields are invalid, or null if they are valid
+	 */
+	public static String validate(String firstName, String lastName, String id, String email, String password,
+			int maxCourses) {
+		String reason = User.validate(firstName, lastName, id, email, password);
+		if (reason == null && (maxCourses < MIN_COURSES || maxCourses > MAX_COURSES)) {
+			reason = "max courses out of range";
+		}
+		return reason;
+	}
+
 	/**
 	 * Returns true if the faculty can add the course to their schedule.
 	 * @param c Course to check
 	 * @return true if the course can be added
 	 */
 	@Override
-	public boolean canAddCourse(Course c) {
+	public synchronized boolean canAddCourse(Course c) {
 		return !(courses.size() >= maxCourses || courses.contains(c)); 
 	}
 
@@ -57,7 +77,7 @@ public class Faculty extends User {
 	 * @return true if the course is added
 	 */
 	@Override
-	public boolean addCourse(Course c) {
+	public synchronized boolean addCourse(Course c) {
 		if (canAddCourse(c)) {
 			return courses.add(c);
 		}
@@ -71,7 +91,7 @@ public class Faculty extends User {
 	 * @return true if the course is removed
 	 */
 	@Override
-	public boolean removeCourse(Course c) {
+	public synchronized boolean removeCourse(Course c) {
 		if (c == null) {
 			return false; //Avoid NPE
 		}
@@ -117,7 +137,7 @@ public class Faculty extends User {
 	 * @return an array of Courses the faculty is teaching.
 	 */
 	@Override
-	public Course[] getCourses() {
+	public synchronized Course[] getCourses() {
 		Course [] cs = new Course[courses.size()];
 		return courses.toArray(cs);
 	}
@@ -146,14 +166,12 @@ public class Faculty extends User {
 	 * @return a String representation of a Faculty
 	 */
 	@Override
-	public String toString() {
-		String temp = super.toString() + "," + maxCourses; 
+	public synchronized String toString() {
+		StringBuilder temp = new StringBuilder(super.toString()).append(',').append(maxCourses);
 		for (int i = 0; i < courses.size(); i++) {
-			Course c = courses.get(i);
-			temp += ",";
-			temp += c.getName();
+			temp.append(',').append(courses.get(i).getName());
 		}
-		return temp;
+		return temp.toString();
 	}
 
 }
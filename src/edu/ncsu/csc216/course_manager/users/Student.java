@@ -4,11 +4,13 @@
 package edu.ncsu.csc216.course_manager.users;
 
 import java.util.ArrayList;
+import java.util.HashSet;
 
 import edu.ncsu.csc216.course_manager.courses.Course;
 
 /**
- * Class representing a student 
+ * Class representing a student.  Course list changes synchronize on the
+ * Student.
  * @author sarahweaver
  *
  */
@@ -16,6 +18,10 @@ public class Student extends User {
 
 	/**Array of student's courses **/
 	private ArrayList<Course> courses;
+	/** Set of student's courses for membership checks */
+	private HashSet<Course> courseSet;
+	/** Sum of the credits of the student's courses */
+	private int currentCredits;
 	/** the max credits that a student can take. */
 	private int maxCredits;
 	/** the max credits possible for any student. **/
@@ -34,6 +40,8 @@ public class Student extends User {
 		super(firstName, lastName, id, email, password);
 		setMaxCredits(maxCredits);
 		courses = new ArrayList<Course>();
+		courseSet = new HashSet<Course>();
+		currentCredits = 0;
 	}
 	
    /**
@@ -48,24 +56,44 @@ public class Student extends User {
 		this(firstName, lastName, id, email, password, MAX_CREDITS);
 	}
 
+	/**
+	 * Returns why the fields cannot make a Student, or null if they can.
+	 * @param firstName student's first name
+	 * @param lastName student's last name
+	 * @param id student's id
+	 * @param email student's email
+	 * @param password student's hashed password
+	 * @param maxCredits student's max credits
+	 * @return the reason the fields are invalid, or null if they are valid
+	 */
+	public static String validate(String firstName, String lastName, String id, String email, String password,
+			int maxCredits) {
+		String reason = User.validate(firstName, lastName, id, email, password);
+		if (reason == null && (maxCredits < 0 || maxCredits > MAX_CREDITS)) {
+			reason = "max credits out of range";
+		}
+		return reason;
+	}
+
 	/** Determines whether a student can add another course
 	 * @param c course to be added
 	 * @return true if a course can be added
 	 */
 	@Override
-	public boolean canAddCourse(Course c) {
-		int count = 0;
-		for (int i = 0; i < courses.size(); i++) {
-			Course d = courses.get(i);
-			count += d.getCredits();
-			if (d.equals(c)) {
-				return false;
-			}
-	    }
-	    if (count + c.getCredits() <= this.maxCredits) {
-		    return true;
-	    }
-		return false;
+	public synchronized boolean canAddCourse(Course c) {
+		if (courseSet.contains(c)) {
+			return false;
+		}
+		return currentCredits + c.getCredits() <= this.maxCredits;
+	}
+
+	/**
+	 * Returns true if the course is one of the student's courses.
+	 * @param c course to look for
+	 * @return true if the student has the course
+	 */
+	public synchronized boolean hasCourse(Course c) {
+		return courseSet.contains(c);
 	}
 
 	/**
@@ -74,9 +102,11 @@ public class Student extends User {
 	 * @return true if the course was added
 	 */
 	@Override
-	public boolean addCourse(Course c) {
+	public synchronized boolean addCourse(Course c) {
 		if (canAddCourse(c)){
 		    courses.add(c);
+		    courseSet.add(c);
+		    currentCredits += c.getCredits();
 		    return true;
 		}
 		return false;
@@ -87,8 +117,13 @@ public class Student extends User {
 	 * @param c course to be removed 
 	 */
 	@Override
-	public boolean removeCourse(Course c) {
-		return courses.remove(c);
+	public synchronized boolean removeCourse(Course c) {
+		if (!courseSet.remove(c)) {
+			return false;
+		}
+		Course removed = courses.remove(courses.indexOf(c));
+		currentCredits -= removed.getCredits();
+		return true;
 	}
 
 	
@@ -97,7 +132,7 @@ public class Student extends User {
      * @return courses as an array
      */
 	@Override
-	public Course[] getCourses() {
+	public synchronized Course[] getCourses() {
 		Course[] c = new Course[courses.size()];	
 		return courses.toArray(c);
 	}
@@ -106,13 +141,8 @@ public class Student extends User {
 	 * Returns the amount of credits a student is enrolled in
 	 * @return count of all of the student's credits
 	 */
-	public int getCurrentCredits() {
-		int count = 0;
-		for (int i = 0; i < courses.size(); i++) {
-			Course d = courses.get(i);
-			count += d.getCredits();
-		}
-		return count;
+	public synchronized int getCurrentCredits() {
+		return currentCredits;
 	}
     
 	/**
@@ -144,14 +174,12 @@ public class Student extends User {
      * and the student's courses.
      */
 	@Override
-	public String toString() {
-		String temp = super.toString() + "," + maxCredits;
+	public synchronized String toString() {
+		StringBuilder temp = new StringBuilder(super.toString()).append(',').append(maxCredits);
 		for (int i = 0; i < courses.size(); i++) {
-			Course c = courses.get(i);
-			temp += ",";
-			temp += c.getName();
+			temp.append(',').append(courses.get(i).getName());
 		}
-		return temp;
+		return temp.toString();
 	}
 
 	/**
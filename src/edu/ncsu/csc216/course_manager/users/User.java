@@ -126,16 +126,54 @@ public abstract class User {
 	 *            new email for the user
 	 */
 	public void setEmail(String email) {
-		if (email == null || email.length() == 0) {
+		if (!isValidEmail(email)) {
 			throw new IllegalArgumentException();
 		}
+		this.email = email;
+	}
+
+	/**
+	 * Returns true if the email has an @ and a '.' after the @.
+	 * @param email email to check
+	 * @return true if the email is valid
+	 */
+	private static boolean isValidEmail(String email) {
+		if (email == null || email.length() == 0) {
+			return false;
+		}
 		int atIdx = email.indexOf("@");
 		int dotIdx = email.lastIndexOf(".");
 		// This is a very naive email checker
-		if (atIdx == -1 || dotIdx == -1 || dotIdx <= atIdx) {
-			throw new IllegalArgumentException();
+		return atIdx != -1 && dotIdx != -1 && dotIdx > atIdx;
+	}
+
+	/**
+	 * Returns why the fields cannot make a User, without throwing an
+	 * exception, so record files can be checked line by line cheaply.
+	 * @param firstName user's first name
+	 * @param lastName user's last name
+	 * @param id user's id
+	 * @param email user's email
+	 * @param password user's hashed password
+	 * @return the reason the fields are invalid, or null if they are valid
+	 */
+	public static String validate(String firstName, String lastName, String id, String email, String password) {
+		if (firstName == null || firstName.length() == 0) {
+			return "missing first name";
 		}
-		this.email = email;
+		if (lastName == null || lastName.length() == 0) {
+			return "missing last name";
+		}
+		if (id == null || id.length() == 0) {
+			return "missing id";
+		}
+		if (!isValidEmail(email)) {
+			return "invalid email";
+		}
+		if (password == null || password.length() == 0) {
+			return "missing password";
+		}
+		return null;
 	}
 
 	/**
@@ -51,6 +51,35 @@ public class FullCourseTest {
 		assertEquals(0, c.getEnrolledStudents().length);
 	}
 	
+	/**
+	 * Tests that the enrolled students keep their enrollment order
+	 * across drops and that a student id can only be enrolled once.
+	 */
+	@Test
+	public void testEnrollmentOrder() {
+		Course c = new Course("CSC216", 3, 10);
+		Student s1 = new Student("first", "last", "flast1", "first_last@ncsu.edu", "pw");
+		Student s2 = new Student("first", "last", "flast2", "first_last@ncsu.edu", "pw");
+		Student s3 = new Student("first", "last", "flast3", "first_last@ncsu.edu", "pw");
+		Student sameId = new Student("other", "last", "flast2", "other_last@ncsu.edu", "pw");
+		
+		assertTrue(c.enroll(s1));
+		assertTrue(c.enroll(s2));
+		assertTrue(c.enroll(s3));
+		assertFalse(c.enroll(sameId));
+		
+		//Only the enrolled student is dropped, not another with the same id
+		assertFalse(c.drop(sameId));
+		assertTrue(c.drop(s2));
+		assertTrue(c.enroll(s2));
+		
+		Student [] enrolled = c.getEnrolledStudents();
+		assertEquals(3, enrolled.length);
+		assertEquals(s1, enrolled[0]);
+		assertEquals(s3, enrolled[1]);
+		assertEquals(s2, enrolled[2]);
+	}
+	
 	/**
 	 * Test changing the capacity when considering enrollments.
 	 */
@@ -0,0 +1,194 @@
+package edu.ncsu.csc216.course_manager.io;
+
+import static org.junit.Assert.*;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import org.junit.Test;
+
+import edu.ncsu.csc216.course_manager.courses.Course;
+import edu.ncsu.csc216.course_manager.manager.CourseManager;
+import edu.ncsu.csc216.course_manager.users.Student;
+
+/**
+ * Tests CompactStore.
+ * @author sarahweaver
+ */
+public class CompactStoreTest {
+
+	private final String courseFile = "test-files/course_records.txt";
+	private final String studentFile = "test-files/student_records.txt";
+	private final String facultyFile = "test-files/faculty_records.txt";
+
+	/**
+	 * Tests reading the record files into a store.
+	 */
+	@Test
+	public void testRead() {
+		CompactStore store = null;
+		try {
+			store = CompactStore.read(courseFile, studentFile, facultyFile);
+		} catch (FileNotFoundException e) {
+			fail(e.getMessage());
+		}
+		assertEquals(8, store.getCourseCount());
+		assertEquals(10, store.getStudentCount());
+		assertEquals(8, store.getFacultyCount());
+		assertEquals(CompactStore.NONE, store.findStudent("fmeadow"));
+		assertEquals(CompactStore.NONE, store.findStudent("nobody"));
+		assertEquals(CompactStore.NONE, store.findCourse("CSC999"));
+
+		int csc216 = store.findCourse("CSC216");
+		assertEquals("CSC216", store.getCourseName(csc216));
+		assertEquals("CSC216,3,10", store.toCourse(csc216).toString());
+		String[] roster = { "zking", "shansen", "daustin", "rbrennan", "efrost", "gstone", "ahicks" };
+		assertEquals(roster.length, store.getEnrolledCount(csc216));
+		int[] enrolled = store.getRoster(csc216);
+		for (int k = 0; k < roster.length; k++) {
+			assertEquals(roster[k], store.getStudentId(enrolled[k]));
+		}
+		assertEquals("fmeadow", store.getFacultyId(store.getProfessor(csc216)));
+
+		// Only the first student fits in CSC246, and the rest keep the course
+		int csc246 = store.findCourse("CSC246");
+		assertEquals(1, store.getEnrolledCount(csc246));
+		assertEquals("daustin", store.getStudentId(store.getRoster(csc246)[0]));
+		int[] dnolan = store.getStudentCourses(store.findStudent("dnolan"));
+		assertArrayEquals(new int[] { store.findCourse("CSC379") }, dnolan);
+
+		int gstone = store.findStudent("gstone");
+		assertEquals("gstone", store.getStudentId(gstone));
+		int[] courses = store.getStudentCourses(gstone);
+		String[] names = { "CSC116", "CSC216", "CSC226", "CSC230" };
+		assertEquals(names.length, courses.length);
+		for (int k = 0; k < names.length; k++) {
+			assertEquals(names[k], store.getCourseName(courses[k]));
+		}
+		Student s = store.toStudent(gstone);
+		assertEquals("Griffith", s.getFirstName());
+		assertEquals("Stone", s.getLastName());
+		assertEquals("porta@magnamalesuadavel.net", s.getEmail());
+		assertEquals(17, s.getMaxCredits());
+		assertEquals(0, s.getCourses().length);
+		assertEquals(0, store.getStudentCourses(store.findStudent("lberg")).length);
+	}
+
+	/**
+	 * Tests reading faculty and making them professors.
+	 */
+	@Test
+	public void testReadFaculty() {
+		CompactStore store = null;
+		try {
+			store = CompactStore.read(courseFile, studentFile, facultyFile);
+		} catch (FileNotFoundException e) {
+			fail(e.getMessage());
+		}
+		int fmeadow = store.findFaculty("fmeadow");
+		assertEquals(1, fmeadow);
+		assertEquals("fmeadow", store.getFacultyId(fmeadow));
+		assertArrayEquals(new int[] { store.findCourse("CSC216"), store.findCourse("CSC230") },
+				store.getFacultyCourses(fmeadow));
+		assertEquals(fmeadow, store.getProfessor(store.findCourse("CSC230")));
+		assertEquals(3, store.toFaculty(fmeadow).getMaxCourses());
+		assertEquals(0, store.getFacultyCourses(store.findFaculty("kpatel")).length);
+		assertEquals(CompactStore.NONE, store.findFaculty("zking"));
+		assertEquals(CompactStore.NONE, store.findStudent("fmeadow"));
+	}
+
+	/**
+	 * Tests that lines with errors are skipped.
+	 */
+	@Test
+	public void testReadInvalid() {
+		CompactStore store = null;
+		try {
+			store = CompactStore.read(courseFile, "test-files/invalid_student_records.txt",
+					"test-files/invalid_faculty_records.txt");
+		} catch (FileNotFoundException e) {
+			fail(e.getMessage());
+		}
+		assertEquals(0, store.getStudentCount());
+		assertEquals(0, store.getFacultyCount());
+		for (int c = 0; c < store.getCourseCount(); c++) {
+			assertEquals(0, store.getEnrolledCount(c));
+			assertEquals(CompactStore.NONE, store.getProfessor(c));
+		}
+	}
+
+	/**
+	 * Tests that a skipped line keeps the seats and professor assignments
+	 * it took before its error, the same as CourseManager.loadAll().
+	 * @throws IOException if the test files cannot be written
+	 */
+	@Test
+	public void testReadPartialLines() throws IOException {
+		String courses = "test-files/actual_compact_courses.txt";
+		String students = "test-files/actual_compact_students.txt";
+		String faculty = "test-files/actual_compact_faculty.txt";
+		write(courses, "CSCA,3,1\nCSCB,3,1\nCSCC,3,1\n");
+		write(students, "Ann,One,aone,a@ncsu.edu,pw,18,CSCA,NOPE\n"
+				+ "Bo,Two,btwo,b@ncsu.edu,pw,18,CSCA,CSCB\n"
+				+ "Cy,Three,cthree,c@ncsu.edu,pw,3,CSCC,CSCB\n");
+		write(faculty, "Fay,One,fone,f@ncsu.edu,pw,1,CSCA,CSCB\n"
+				+ "Gus,Two,gtwo,g@ncsu.edu,pw,3,CSCA,CSCB\n");
+		CompactStore store = CompactStore.read(courses, students, faculty);
+		CourseManager manager = CourseManager.getInstance();
+		manager.clearData();
+		manager.loadAll(courses, students, faculty);
+		for (Course c : manager.listAllCourses()) {
+			int id = store.findCourse(c.getName());
+			Student[] expected = c.getEnrolledStudents();
+			int[] roster = store.getRoster(id);
+			assertEquals(c.getName(), expected.length, roster.length);
+			for (int k = 0; k < roster.length; k++) {
+				assertEquals(expected[k].getId(), store.getStudentId(roster[k]));
+			}
+			if (c.getFaculty() == null) {
+				assertEquals(CompactStore.NONE, store.getProfessor(id));
+			} else {
+				assertEquals(c.getFaculty().getId(), store.getFacultyId(store.getProfessor(id)));
+			}
+		}
+		manager.clearData();
+
+		assertEquals(1, store.getStudentCount());
+		assertEquals(1, store.getFacultyCount());
+		assertEquals(CompactStore.NONE, store.findStudent("aone"));
+		int aone = store.getRoster(store.findCourse("CSCA"))[0];
+		assertTrue(aone >= store.getStudentCount());
+		assertEquals("aone", store.toStudent(aone).getId());
+		assertArrayEquals(new int[] { store.findCourse("CSCA") }, store.getStudentCourses(aone));
+		int cthree = store.getRoster(store.findCourse("CSCC"))[0];
+		assertArrayEquals(new int[] { store.findCourse("CSCC") }, store.getStudentCourses(cthree));
+		assertEquals(CompactStore.NONE, store.findFaculty("fone"));
+		assertEquals("gtwo", store.getFacultyId(store.findFaculty("gtwo")));
+	}
+
+	/**
+	 * Writes text to a file.
+	 * @param fileName name of the file
+	 * @param text text to write
+	 * @throws IOException if the file cannot be written
+	 */
+	private void write(String fileName, String text) throws IOException {
+		PrintWriter out = new PrintWriter(fileName);
+		out.print(text);
+		out.close();
+	}
+
+	/**
+	 * Tests reading a file that does not exist.
+	 */
+	@Test
+	public void testReadMissingFile() {
+		try {
+			CompactStore.read(courseFile, "test-files/no_such_file.txt", facultyFile);
+			fail();
+		} catch (FileNotFoundException e) {
+			assertNotNull(e.getMessage());
+		}
+	}
+}
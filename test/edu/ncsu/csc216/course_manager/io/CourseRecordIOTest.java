@@ -9,8 +9,10 @@ import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Scanner;
+import java.util.stream.Stream;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -87,6 +89,24 @@ public class CourseRecordIOTest {
 		}
 	}
 
+	/**
+	 * Tests streamCourseRecords().
+	 * @throws FileNotFoundException if the file cannot be read
+	 */
+	@Test
+	public void testStreamCourseRecords() throws FileNotFoundException {
+		try (Stream<Course> courses = CourseRecordIO.streamCourseRecords(validTestFile)) {
+			Iterator<Course> it = courses.iterator();
+			for (int i = 0; i < validCourses.length; i++) {
+				assertEquals(validCourses[i], it.next().toString());
+			}
+			assertFalse(it.hasNext());
+		}
+		try (Stream<Course> courses = CourseRecordIO.streamCourseRecords(invalidTestFile)) {
+			assertEquals(0, courses.count());
+		}
+	}
+
 	/**
 	 * Tests writeCourseRecords()
 	 */
@@ -0,0 +1,74 @@
+package edu.ncsu.csc216.course_manager.io;
+
+import static org.junit.Assert.*;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import edu.ncsu.csc216.course_manager.courses.Course;
+
+/**
+ * Tests the EnrollmentJournal class.
+ * @author sarahweaver
+ *
+ */
+public class EnrollmentJournalTest {
+	/** Journal file written by the tests */
+	private final String journalFile = "test-files/actual_journal.txt";
+
+	/**
+	 * Deletes the journal file.
+	 * @throws IOException if the file cannot be deleted
+	 */
+	@After
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(FileSystems.getDefault().getPath(journalFile));
+	}
+
+	/**
+	 * Tests writing and reading entries, including a bad line and a last
+	 * line that was cut off.
+	 * @throws IOException if the journal cannot be written or read
+	 */
+	@Test
+	public void testReadJournal() throws IOException {
+		EnrollmentJournal journal = new EnrollmentJournal(journalFile);
+		journal.addCourse(new Course("CSC500", 3, 25));
+		journal.append(JournalEntry.Type.ENROLL, "lberg", "CSC500");
+		journal.close();
+		FileOutputStream out = new FileOutputStream(journalFile, true);
+		out.write("BOGUS,lberg\nDROP,lberg,CSC5".getBytes());
+		out.close();
+		journal = new EnrollmentJournal(journalFile);
+		journal.removeCourse("CSC216");
+		journal.close();
+
+		//Reopening the journal removed the cut off line
+		List<JournalEntry> entries = EnrollmentJournal.readJournal(journalFile);
+		assertEquals(3, entries.size());
+		assertEquals(JournalEntry.Type.ADD_COURSE, entries.get(0).getType());
+		assertEquals("CSC500", entries.get(0).getCourseName());
+		assertEquals(3, entries.get(0).getCredits());
+		assertEquals(25, entries.get(0).getCapacity());
+		assertEquals(JournalEntry.Type.ENROLL, entries.get(1).getType());
+		assertEquals("lberg", entries.get(1).getUserId());
+		assertEquals(JournalEntry.Type.REMOVE_COURSE, entries.get(2).getType());
+		assertEquals("CSC216", entries.get(2).getCourseName());
+
+		out = new FileOutputStream(journalFile, true);
+		out.write("DROP,lberg,CSC5".getBytes());
+		out.close();
+		assertEquals(3, EnrollmentJournal.readJournal(journalFile).size());
+
+		journal = new EnrollmentJournal(journalFile);
+		journal.truncate();
+		journal.close();
+		assertEquals(0, EnrollmentJournal.readJournal(journalFile).size());
+	}
+}
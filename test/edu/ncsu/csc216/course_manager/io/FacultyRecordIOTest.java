@@ -124,6 +124,24 @@ public class FacultyRecordIOTest {
 		}
 	}
 
+	/**
+	 * Test reading faculty from a valid record file in parallel.
+	 */
+	@Test
+	public void testReadFacultyRecordsParallel() {
+		try {
+			List<Faculty> faculty = FacultyRecordIO.readFacultyRecordsParallel(validTestFile);
+
+			assertEquals(8, faculty.size());
+			for (int i = 0; i < validFaculty.length; i++) {
+				assertEquals(validFaculty[i], faculty.get(i).toString());
+			}
+			assertEquals(0, FacultyRecordIO.readFacultyRecordsParallel(invalidTestFile).size());
+		} catch (FileNotFoundException e) {
+			fail("Unexpected error reading " + validTestFile);
+		}
+	}
+
 	/**
 	 * Test invalid faculty record files.
 	 */
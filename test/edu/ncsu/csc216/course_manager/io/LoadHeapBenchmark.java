@@ -0,0 +1,115 @@
+package edu.ncsu.csc216.course_manager.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+
+import edu.ncsu.csc216.course_manager.courses.Course;
+import edu.ncsu.csc216.course_manager.manager.CourseManager;
+import edu.ncsu.csc216.course_manager.users.Student;
+
+/**
+ * Measures the heap kept by a large student load and how many of the
+ * name Strings are shared, and then the heap kept by a CompactStore of
+ * the same students.  The generated students draw their names from small
+ * lists, as real rosters do, and each has its own id, email and password.
+ * The lists grow through the file, so some names first appear near its
+ * end.  Run with a large heap:
+ * java -Xmx3g edu.ncsu.csc216.course_manager.io.LoadHeapBenchmark [lines]
+ * @author sarahweaver
+ */
+public class LoadHeapBenchmark {
+
+	/** Number of courses in the generated catalog */
+	private static final int COURSES = 200;
+	/** Number of different first names */
+	private static final int FIRST_NAMES = 1000;
+	/** Number of different last names */
+	private static final int LAST_NAMES = 2000;
+
+	/**
+	 * Runs the benchmark.
+	 * @param args number of student lines to generate
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void main(String[] args) throws IOException {
+		int lines = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		File file = File.createTempFile("students", ".txt");
+		file.deleteOnExit();
+		Random random = new Random(1);
+		PrintWriter out = new PrintWriter(file);
+		for (int i = 0; i < lines; i++) {
+			//Name k of a list first becomes available k / size of the way through the file
+			int firstNames = (int) (1 + (long) (FIRST_NAMES - 1) * i / Math.max(1, lines - 1));
+			int lastNames = (int) (1 + (long) (LAST_NAMES - 1) * i / Math.max(1, lines - 1));
+			out.println("F" + random.nextInt(firstNames) + ",L" + random.nextInt(lastNames) + "son,u" + i + ",u" + i
+					+ "@ncsu.edu," + Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong())
+					+ ",18,CSC" + random.nextInt(COURSES) + ",CSC" + (COURSES + random.nextInt(COURSES)));
+		}
+		out.close();
+
+		CourseManager manager = CourseManager.getInstance();
+		manager.clearData();
+		for (int i = 0; i < 2 * COURSES; i++) {
+			manager.addCourse(new Course("CSC" + i, 3, Integer.MAX_VALUE));
+		}
+		long before = usedHeap();
+		long start = System.nanoTime();
+		List<Student> students = StudentRecordIO.readStudentRecords(file.getPath());
+		long time = System.nanoTime() - start;
+		long after = usedHeap();
+
+		IdentityHashMap<String, Boolean> firstNames = new IdentityHashMap<String, Boolean>();
+		IdentityHashMap<String, Boolean> lastNames = new IdentityHashMap<String, Boolean>();
+		IdentityHashMap<String, Boolean> lateNames = new IdentityHashMap<String, Boolean>();
+		HashSet<String> lateValues = new HashSet<String>();
+		for (Student s : students) {
+			firstNames.put(s.getFirstName(), Boolean.TRUE);
+			lastNames.put(s.getLastName(), Boolean.TRUE);
+			//Names in the last tenth of the list first appear in the last tenth of the file
+			if (Integer.parseInt(s.getFirstName().substring(1)) >= FIRST_NAMES * 9 / 10) {
+				lateNames.put(s.getFirstName(), Boolean.TRUE);
+				lateValues.add(s.getFirstName());
+			}
+		}
+		System.out.println(students.size() + " students in " + time / 1000000 + " ms, heap kept: "
+				+ (after - before) / (1 << 20) + " MB, first name Strings: " + firstNames.size()
+				+ ", last name Strings: " + lastNames.size() + ", late first names: " + lateValues.size()
+				+ " in " + lateNames.size() + " Strings");
+		students = null;
+		manager.clearData();
+
+		File courses = File.createTempFile("courses", ".txt");
+		courses.deleteOnExit();
+		out = new PrintWriter(courses);
+		for (int i = 0; i < 2 * COURSES; i++) {
+			out.println("CSC" + i + ",3," + Integer.MAX_VALUE);
+		}
+		out.close();
+		File faculty = File.createTempFile("faculty", ".txt");
+		faculty.deleteOnExit();
+		before = usedHeap();
+		start = System.nanoTime();
+		CompactStore store = CompactStore.read(courses.getPath(), file.getPath(), faculty.getPath());
+		time = System.nanoTime() - start;
+		after = usedHeap();
+		System.out.println(store.getStudentCount() + " students in a CompactStore in " + time / 1000000
+				+ " ms, heap kept: " + (after - before) / (1 << 20) + " MB");
+	}
+
+	/**
+	 * Returns the heap in use after collecting garbage.
+	 * @return bytes in use
+	 */
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 4; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+}
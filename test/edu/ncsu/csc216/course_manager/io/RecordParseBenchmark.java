@@ -0,0 +1,102 @@
+package edu.ncsu.csc216.course_manager.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+
+import edu.ncsu.csc216.course_manager.courses.Course;
+import edu.ncsu.csc216.course_manager.manager.CourseManager;
+
+/**
+ * Compares parsing a large student record file with per-line Scanners
+ * against the RecordTokenizer based readers, including the parallel reader.  Only the fields are parsed in
+ * the Scanner version, so the difference is a lower bound.  Run with:
+ * java edu.ncsu.csc216.course_manager.io.RecordParseBenchmark [lines]
+ * @author sarahweaver
+ */
+public class RecordParseBenchmark {
+
+	/** Number of courses in the generated catalog */
+	private static final int COURSES = 200;
+
+	/**
+	 * Runs the benchmark.
+	 * @param args number of student lines to generate
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void main(String[] args) throws IOException {
+		int lines = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+		File file = File.createTempFile("students", ".txt");
+		file.deleteOnExit();
+		PrintWriter out = new PrintWriter(file);
+		for (int i = 0; i < lines; i++) {
+			out.println("First" + i + ",Last" + i + ",id" + i + ",user" + i + "@ncsu.edu,pw,18,CSC"
+					+ (i % COURSES) + ",CSC" + ((i + 1) % COURSES));
+		}
+		out.close();
+		
+		CourseManager manager = CourseManager.getInstance();
+		for (int round = 0; round < 3; round++) {
+			manager.clearData();
+			for (int i = 0; i < COURSES; i++) {
+				manager.addCourse(new Course("CSC" + i, 3, Integer.MAX_VALUE));
+			}
+			long start = System.nanoTime();
+			int fields = scannerFields(file);
+			long scanner = System.nanoTime() - start;
+			
+			start = System.nanoTime();
+			int students = StudentRecordIO.readStudentRecords(file.getPath()).size();
+			long tokenizer = System.nanoTime() - start;
+			
+			start = System.nanoTime();
+			int mappedStudents = StudentRecordIO.readStudentRecordsMapped(file.getPath()).size();
+			long mapped = System.nanoTime() - start;
+			
+			start = System.nanoTime();
+			int parallelStudents = StudentRecordIO.readStudentRecordsParallel(file.getPath()).size();
+			long parallel = System.nanoTime() - start;
+			
+			System.out.println("Scanner fields only: " + scanner / 1000000 + " ms (" + fields + " fields), "
+					+ "readStudentRecords: " + tokenizer / 1000000 + " ms (" + students + " students), "
+					+ "readStudentRecordsMapped: " + mapped / 1000000 + " ms (" + mappedStudents + " students), "
+					+ "readStudentRecordsParallel: " + parallel / 1000000 + " ms (" + parallelStudents + " students)");
+		}
+		manager.clearData();
+	}
+
+	/**
+	 * Splits every line of the file with a Scanner per line, the way the
+	 * readers used to.
+	 * @param file file to read
+	 * @return number of fields read
+	 * @throws IOException if the file cannot be read
+	 */
+	private static int scannerFields(File file) throws IOException {
+		int fields = 0;
+		Scanner fileScan = new Scanner(new FileInputStream(file));
+		while (fileScan.hasNextLine()) {
+			Scanner lineScanner = new Scanner(fileScan.nextLine());
+			lineScanner.useDelimiter(",");
+			try {
+				for (int i = 0; i < 5; i++) {
+					lineScanner.next();
+				}
+				lineScanner.nextInt();
+				fields += 6;
+				while (lineScanner.hasNext()) {
+					lineScanner.next();
+					fields++;
+				}
+			} catch (NoSuchElementException e) {
+				//count what was read
+			}
+			lineScanner.close();
+		}
+		fileScan.close();
+		return fields;
+	}
+}
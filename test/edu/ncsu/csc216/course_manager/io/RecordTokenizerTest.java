@@ -0,0 +1,179 @@
+package edu.ncsu.csc216.course_manager.io;
+
+import static org.junit.Assert.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+
+import org.junit.Test;
+
+/**
+ * Tests the RecordTokenizer class.
+ * @author sarahweaver
+ */
+public class RecordTokenizerTest {
+	
+	/** Lines whose fields should match a Scanner using "," as a delimiter */
+	private final String [] lines = {"", ",", "a", "a,", "a,,", ",a", ",,a", "a,,b", " a , b", "a,b,,,",
+			"CSC216,3,10", "Lane,Berg,lberg,sociis@non.org,pw,14,CSC116,"};
+
+	/**
+	 * Tests that next() splits lines the same way Scanner does.
+	 */
+	@Test
+	public void testNext() {
+		RecordTokenizer record = new RecordTokenizer();
+		for (String line : lines) {
+			Scanner lineScanner = new Scanner(line);
+			lineScanner.useDelimiter(",");
+			List<String> expected = new ArrayList<String>();
+			while (lineScanner.hasNext()) {
+				expected.add(lineScanner.next());
+			}
+			lineScanner.close();
+			
+			record.reset(line);
+			List<String> actual = new ArrayList<String>();
+			while (record.hasNext()) {
+				actual.add(record.next());
+			}
+			assertEquals(line, expected, actual);
+		}
+		
+		try {
+			record.next();
+			fail("next() should throw when there are no more fields");
+		} catch (IllegalArgumentException e) {
+			assertFalse(record.hasNext());
+		}
+	}
+
+	/**
+	 * Tests that nextShared() returns the same String for equal fields on
+	 * different lines, and that the pool stops growing once it is full.
+	 */
+	@Test
+	public void testNextShared() {
+		RecordTokenizer record = new RecordTokenizer();
+		record.reset("Lane,CSC116,CSC216");
+		String first = record.nextShared();
+		String course = record.nextShared();
+		record.reset("CSC116,Lane,CSC21");
+		assertSame(course, record.nextShared());
+		assertSame(first, record.nextShared());
+		assertEquals("CSC21", record.nextShared());
+		assertFalse(record.hasNext());
+		
+		StringPool pool = new StringPool();
+		for (int i = 0; i < StringPool.MAX_SIZE + 10; i++) {
+			String line = "id" + i;
+			assertEquals(line, pool.intern(line, 0, line.length()));
+		}
+		assertEquals(StringPool.MAX_SIZE, pool.size());
+		String line = "x,id7,y";
+		assertSame(pool.intern("id7", 0, 3), pool.intern(line, 2, 5));
+	}
+
+	/**
+	 * Tests that UserRecord.nextUserFields() shares names between lines but
+	 * not ids, emails or passwords.
+	 */
+	@Test
+	public void testNextUserFields() {
+		RecordTokenizer record = new RecordTokenizer();
+		record.reset("Lane,Berg,lberg,lberg@ncsu.edu,pw,14");
+		String[] first = UserRecord.nextUserFields(record);
+		record.reset("Lane,Berg,lberg,lberg@ncsu.edu,pw,14");
+		String[] second = UserRecord.nextUserFields(record);
+		assertSame(first[0], second[0]);
+		assertSame(first[1], second[1]);
+		for (int i = 2; i < first.length; i++) {
+			assertEquals(first[i], second[i]);
+			assertNotSame(first[i], second[i]);
+		}
+		assertEquals(14, record.nextInt());
+		record.reset("Lane,Berg,lberg");
+		assertNull(UserRecord.nextUserFields(record));
+	}
+
+	/**
+	 * Tests that nextInt() accepts the same values Scanner does.
+	 */
+	@Test
+	public void testNextInt() {
+		String line = "1,+2,-3, 4,0x5,1_0,2147483647,2147483648,-2147483648,-2147483649,00012,-0,-,+,";
+		Scanner lineScanner = new Scanner(line);
+		lineScanner.useDelimiter(",");
+		RecordTokenizer record = new RecordTokenizer();
+		record.reset(line);
+		while (lineScanner.hasNext()) {
+			Integer expected;
+			try {
+				expected = lineScanner.nextInt();
+			} catch (NoSuchElementException e) {
+				expected = null;
+				lineScanner.next();
+			}
+			Integer actual;
+			try {
+				actual = record.nextInt();
+			} catch (IllegalArgumentException e) {
+				actual = null;
+				record.next();
+			}
+			assertEquals(expected, actual);
+		}
+		lineScanner.close();
+		assertFalse(record.hasNext());
+		
+		try {
+			record.nextInt();
+			fail("nextInt() should throw when there are no more fields");
+		} catch (IllegalArgumentException e) {
+			assertFalse(record.hasNext());
+		}
+	}
+
+	/**
+	 * Tests that MappedRecordTokenizer reads the same fields and ints from
+	 * a line's bytes as RecordTokenizer reads from the line.
+	 */
+	@Test
+	public void testMappedRecordTokenizer() {
+		Charset charset = StandardCharsets.UTF_8;
+		assertTrue(MappedRecordTokenizer.supports(charset));
+		assertFalse(MappedRecordTokenizer.supports(StandardCharsets.UTF_16));
+		MappedRecordTokenizer mapped = new MappedRecordTokenizer(charset);
+		RecordTokenizer record = new RecordTokenizer();
+		List<String> all = new ArrayList<String>(Arrays.asList(lines));
+		all.add("Zo\u00eb,Andr\u00e9,zandre,z@ncsu.edu,p\u00e4ss,-12,CSC116,+7,CSC116");
+		for (String line : all) {
+			//Pad the line so that it does not start at the buffer's start
+			ByteBuffer buffer = ByteBuffer.wrap(("\n" + line + "\n").getBytes(charset));
+			mapped.reset(buffer, 1, buffer.capacity() - 1);
+			record.reset(line);
+			assertEquals(line, mapped.getLine());
+			while (record.hasNext()) {
+				assertTrue(line, mapped.hasNext());
+				assertEquals(line, record.hasNextInt(), mapped.hasNextInt());
+				if (record.hasNextInt()) {
+					assertEquals(record.nextInt(), mapped.nextInt());
+				} else {
+					assertEquals(line, record.nextShared(), mapped.nextShared());
+				}
+			}
+			assertFalse(line, mapped.hasNext());
+		}
+		assertEquals(all.size(), mapped.getLineNumber());
+		
+		ByteBuffer buffer = ByteBuffer.wrap("CSC116,CSC116".getBytes(charset));
+		mapped.reset(buffer, 0, buffer.capacity());
+		assertSame(mapped.nextShared(), mapped.nextShared());
+	}
+}
@@ -0,0 +1,114 @@
+package edu.ncsu.csc216.course_manager.io;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.Charset;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+
+import edu.ncsu.csc216.course_manager.courses.Course;
+import edu.ncsu.csc216.course_manager.users.Faculty;
+import edu.ncsu.csc216.course_manager.users.Student;
+
+/**
+ * Tests the RecordWriter class.
+ * @author sarahweaver
+ *
+ */
+public class RecordWriterTest {
+
+	/**
+	 * Tests that each record line matches the entity's toString().
+	 * @throws IOException if a record cannot be written
+	 */
+	@Test
+	public void testWriteRecords() throws IOException {
+		Course c1 = new Course("CSC116", 3, 10);
+		Course c2 = new Course("CSC216", 4, 150);
+		Student s = new Student("first", "last", "flast", "first_last@ncsu.edu", "pw", 18);
+		s.addCourse(c1);
+		s.addCourse(c2);
+		Student noCourses = new Student("Lane", "Berg", "lberg", "sociis@non.org", "pw", 0);
+		Faculty f = new Faculty("Fac", "Ulty", "fulty", "fulty@ncsu.edu", "pw", 3);
+		f.addCourse(c2);
+
+		StringWriter text = new StringWriter();
+		RecordWriter out = new RecordWriter(text);
+		out.writeCourse(c1);
+		out.writeCourse(c2);
+		out.writeStudent(s);
+		out.writeStudent(noCourses);
+		out.writeFaculty(f);
+		out.close();
+
+		String n = System.getProperty("line.separator");
+		assertEquals(c1.toString() + n + c2.toString() + n + s.toString() + n + noCourses.toString() + n
+				+ f.toString() + n, text.toString());
+		assertEquals("first,last,flast,first_last@ncsu.edu,pw,18,CSC116,CSC216", s.toString());
+	}
+
+	/**
+	 * Tests that a file is only replaced when the writer is closed, and is
+	 * left as it was when the writer is aborted.
+	 * @throws IOException if the test file cannot be written
+	 */
+	@Test
+	public void testReplaceFile() throws IOException {
+		Path path = FileSystems.getDefault().getPath("test-files", "actual_course_records.txt");
+		Files.write(path, "old\n".getBytes());
+		Course c = new Course("CSC116", 3, 10);
+
+		RecordWriter out = new RecordWriter(path.toString());
+		out.writeCourse(c);
+		out.abort();
+		out.abort();
+		assertEquals("old", Files.readAllLines(path, Charset.defaultCharset()).get(0));
+
+		out = new RecordWriter(path.toString(), true);
+		out.writeCourse(c);
+		assertEquals("old", Files.readAllLines(path, Charset.defaultCharset()).get(0));
+		out.close();
+		out.abort();
+		assertEquals(c.toString(), Files.readAllLines(path, Charset.defaultCharset()).get(0));
+
+		for (File f : new File("test-files").listFiles()) {
+			assertFalse(f.getName(), f.getName().endsWith(".tmp"));
+		}
+		Files.deleteIfExists(path);
+	}
+
+	/**
+	 * Tests that a file is compressed when it replaces a compressed file,
+	 * whatever its name, and reads back through the course reader.
+	 * @throws IOException if the test file cannot be written
+	 */
+	@Test
+	public void testReplaceCompressedFile() throws IOException {
+		Path path = FileSystems.getDefault().getPath("test-files", "actual_course_records.txt");
+		Files.deleteIfExists(path);
+		Course c = new Course("CSC116", 3, 10);
+
+		RecordWriter out = new RecordWriter(path.toString());
+		out.writeCourse(c);
+		out.close();
+		assertFalse(RecordCompression.isCompressed(path.toString()));
+
+		GZIPOutputStream gz = new GZIPOutputStream(Files.newOutputStream(path));
+		gz.write("old\n".getBytes());
+		gz.close();
+		assertTrue(RecordCompression.isCompressed(path.toString()));
+		out = new RecordWriter(path.toString());
+		out.writeCourse(c);
+		out.close();
+		assertTrue(RecordCompression.isCompressed(path.toString()));
+		assertEquals(c.toString(), CourseRecordIO.readCourseRecords(path.toString()).get(0).toString());
+		Files.deleteIfExists(path);
+	}
+}
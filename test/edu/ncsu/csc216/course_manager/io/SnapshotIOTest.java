@@ -0,0 +1,155 @@
+package edu.ncsu.csc216.course_manager.io;
+
+import static org.junit.Assert.*;
+
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+
+import edu.ncsu.csc216.course_manager.courses.Course;
+import edu.ncsu.csc216.course_manager.users.Faculty;
+import edu.ncsu.csc216.course_manager.users.Student;
+
+/**
+ * Tests the SnapshotIO class.
+ * @author sarahweaver
+ *
+ */
+public class SnapshotIOTest {
+	/** Snapshot file written by the tests */
+	private final String snapshotFile = "test-files/actual_snapshot.dat";
+
+	/**
+	 * Deletes the snapshot file.
+	 * @throws IOException if the file cannot be deleted
+	 */
+	@After
+	public void tearDown() throws IOException {
+		Files.deleteIfExists(FileSystems.getDefault().getPath(snapshotFile));
+	}
+
+	/**
+	 * Tests writing and reading a snapshot, including a full course whose
+	 * roster is missing a student that has the course in their list.
+	 * @throws IOException if the snapshot cannot be written or read
+	 */
+	@Test
+	public void testWriteReadSnapshot() throws IOException {
+		Course c1 = new Course("CSC116", 3, 1);
+		Course c2 = new Course("CSC216", 4, 10);
+		Course removed = new Course("CSC316", 3, 10);
+		Student s1 = new Student("first", "last", "flast", "first_last@ncsu.edu", "pw", 18);
+		Student s2 = new Student("Lane", "Berg", "lberg", "sociis@non.org", "pw", 14);
+		s2.addCourse(c2);
+		c2.enroll(s2);
+		s1.addCourse(c1);
+		c1.enroll(s1);
+		s1.addCourse(c2);
+		c2.enroll(s1);
+		s1.addCourse(removed);
+		s2.addCourse(c1);
+		Faculty f = new Faculty("Fac", "Ulty", "fulty", "fulty@ncsu.edu", "pw", 3);
+		f.addCourse(c2);
+		c2.addFaculty(f);
+		List<Course> courses = new ArrayList<Course>();
+		courses.add(c1);
+		courses.add(c2);
+		List<Student> students = new ArrayList<Student>();
+		students.add(s1);
+		students.add(s2);
+		List<Faculty> faculty = new ArrayList<Faculty>();
+		faculty.add(f);
+
+		SnapshotIO.writeSnapshot(snapshotFile, courses, students, faculty);
+		Snapshot snapshot = SnapshotIO.readSnapshot(snapshotFile);
+
+		assertEquals(2, snapshot.getCourses().size());
+		Course read1 = snapshot.getCourses().get(0);
+		Course read2 = snapshot.getCourses().get(1);
+		assertEquals(c1.toString(), read1.toString());
+		assertEquals(c2.toString(), read2.toString());
+		assertEquals(2, snapshot.getStudents().size());
+		Student read = snapshot.getStudents().get(0);
+		assertEquals("first,last,flast,first_last@ncsu.edu,pw,18,CSC116,CSC216", read.toString());
+		assertEquals(s2.toString(), snapshot.getStudents().get(1).toString());
+		assertEquals(1, snapshot.getFaculty().size());
+		assertEquals(f.toString(), snapshot.getFaculty().get(0).toString());
+
+		//Rosters keep enrollment order and refer to the read objects
+		assertSame(snapshot.getStudents().get(1), read2.getEnrolledStudents()[0]);
+		assertSame(read, read2.getEnrolledStudents()[1]);
+		assertEquals(1, read1.getEnrolledStudents().length);
+		assertSame(read, read1.getEnrolledStudents()[0]);
+		assertSame(read1, read.getCourses()[0]);
+		assertSame(snapshot.getFaculty().get(0), read2.getFaculty());
+		assertNull(read1.getFaculty());
+	}
+
+	/**
+	 * Tests reading files that are not valid snapshots.
+	 * @throws IOException if a test file cannot be written
+	 */
+	@Test
+	public void testReadInvalidSnapshot() throws IOException {
+		try {
+			SnapshotIO.readSnapshot("test-files/course_records.txt");
+			fail("A record file is not a snapshot");
+		} catch (IOException e) {
+			//expected
+		}
+
+		//A student refers to a course that is not in the snapshot
+		DataOutputStream out = new DataOutputStream(new FileOutputStream(snapshotFile));
+		out.writeInt(SnapshotIO.MAGIC);
+		out.writeInt(SnapshotIO.VERSION);
+		out.writeInt(0);
+		out.writeInt(1);
+		out.writeUTF("first");
+		out.writeUTF("last");
+		out.writeUTF("flast");
+		out.writeUTF("first_last@ncsu.edu");
+		out.writeUTF("pw");
+		out.writeInt(18);
+		out.writeInt(1);
+		out.writeInt(0);
+		out.close();
+		try {
+			SnapshotIO.readSnapshot(snapshotFile);
+			fail("Course index is out of range");
+		} catch (IOException e) {
+			//expected
+		}
+
+		//A corrupt count runs out of file instead of memory
+		out = new DataOutputStream(new FileOutputStream(snapshotFile));
+		out.writeInt(SnapshotIO.MAGIC);
+		out.writeInt(SnapshotIO.VERSION);
+		out.writeInt(Integer.MAX_VALUE);
+		out.writeUTF("CSC216");
+		out.writeInt(3);
+		out.writeInt(10);
+		out.close();
+		try {
+			SnapshotIO.readSnapshot(snapshotFile);
+			fail("Truncated snapshot should not be read");
+		} catch (IOException e) {
+			assertEquals("Invalid snapshot file: " + snapshotFile, e.getMessage());
+		}
+
+		Path missing = FileSystems.getDefault().getPath("test-files", "no_such_file.dat");
+		try {
+			SnapshotIO.readSnapshot(missing.toString());
+			fail("Missing file should throw an IOException");
+		} catch (IOException e) {
+			//expected
+		}
+	}
+}
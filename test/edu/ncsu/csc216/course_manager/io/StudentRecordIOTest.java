@@ -11,8 +11,10 @@ import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Scanner;
+import java.util.stream.Stream;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -130,6 +132,180 @@ public class StudentRecordIOTest {
 		}
 	}
 
+	/**
+	 * Test reading students from a valid record file by mapping it.
+	 */
+	@Test
+	public void testReadStudentRecordsMapped() {
+		try {
+			List<Student> students = StudentRecordIO.readStudentRecordsMapped(validTestFile);
+			assertEquals(10, students.size());
+			
+			for (int i = 0; i < validStudents.length; i++) {
+				assertEquals(validStudents[i], students.get(i).toString());
+			}
+			
+			assertEquals(0, StudentRecordIO.readStudentRecordsMapped(invalidTestFile).size());
+		} catch (FileNotFoundException e) {
+			fail("Unexpected error reading " + validTestFile);
+		}
+		
+		try {
+			StudentRecordIO.readStudentRecordsMapped("test-files/no_such_file.txt");
+			fail("Missing file should throw FileNotFoundException");
+		} catch (FileNotFoundException e) {
+			//expected
+		}
+	}
+	
+	/**
+	 * Test reading a file with \r\n line endings through map windows
+	 * smaller than a line, so lines and line endings cross windows.
+	 * @throws IOException if the test file cannot be written
+	 */
+	@Test
+	public void testReadStudentRecordsMappedWindows() throws IOException {
+		Path source = FileSystems.getDefault().getPath("test-files", "student_records.txt");
+		Path crlf = FileSystems.getDefault().getPath("test-files", "actual_student_records_crlf.txt");
+		List<String> lines = Files.readAllLines(source, java.nio.charset.Charset.defaultCharset());
+		StringBuilder text = new StringBuilder();
+		for (String line : lines) {
+			text.append(line).append("\r\n");
+		}
+		Files.write(crlf, text.toString().getBytes());
+		
+		List<Student> students = StudentRecordIO.readStudentRecordsMapped(crlf.toString(), 16);
+		assertEquals(10, students.size());
+		for (int i = 0; i < validStudents.length; i++) {
+			assertEquals(validStudents[i], students.get(i).toString());
+		}
+		Files.deleteIfExists(crlf);
+	}
+
+	/**
+	 * Test reading students in parallel, with chunks small enough that the
+	 * file is split between lines and \r\n line endings.
+	 * @throws IOException if the test file cannot be written
+	 */
+	@Test
+	public void testReadStudentRecordsParallel() throws IOException {
+		List<Student> students = StudentRecordIO.readStudentRecordsParallel(validTestFile);
+		assertEquals(10, students.size());
+		for (int i = 0; i < validStudents.length; i++) {
+			assertEquals(validStudents[i], students.get(i).toString());
+		}
+		assertEquals(0, StudentRecordIO.readStudentRecordsParallel(invalidTestFile).size());
+		
+		manager.clearData();
+		Course[] courses = { c1, c2, c3, c4, c5, c6, c7, c8 };
+		for (int i = 0; i < courses.length; i++) {
+			manager.addCourse(new Course(courses[i].getName(), courses[i].getCredits(), courses[i].getCapacity()));
+		}
+		Path source = FileSystems.getDefault().getPath("test-files", "student_records.txt");
+		Path crlf = FileSystems.getDefault().getPath("test-files", "actual_student_records_crlf.txt");
+		List<String> lines = Files.readAllLines(source, java.nio.charset.Charset.defaultCharset());
+		StringBuilder text = new StringBuilder();
+		for (String line : lines) {
+			text.append(line).append("\r\n");
+		}
+		Files.write(crlf, text.toString().getBytes());
+		
+		students = StudentRecordIO.readStudentRecordsParallel(crlf.toString(), 16);
+		assertEquals(10, students.size());
+		for (int i = 0; i < validStudents.length; i++) {
+			assertEquals(validStudents[i], students.get(i).toString());
+		}
+		assertEquals(students.get(0), manager.getCourseByName("CSC216").getEnrolledStudents()[0]);
+		Files.deleteIfExists(crlf);
+		
+		try {
+			StudentRecordIO.readStudentRecordsParallel("test-files/no_such_file.txt");
+			fail("Missing file should throw FileNotFoundException");
+		} catch (FileNotFoundException e) {
+			//expected
+		}
+	}
+
+	/**
+	 * Test indexing students, reading one by id, and then reading the rest.
+	 * @throws IOException if the test file cannot be read
+	 */
+	@Test
+	public void testIndexStudentRecords() throws IOException {
+		StudentIndex index = StudentRecordIO.indexStudentRecords(validTestFile);
+		assertEquals(10, index.size());
+		assertTrue(index.contains("shansen"));
+		assertFalse(index.contains("nobody"));
+		assertFalse(index.contains(null));
+		
+		//Seats are held, but no student is on a roster yet
+		assertEquals(7, c2.getEnrolledCount());
+		assertEquals(0, c2.getEnrolledStudents().length);
+		
+		Student s = index.readStudent("shansen");
+		assertEquals(validStudents[2], s.toString());
+		assertSame(s, index.readStudent("shansen"));
+		assertNull(index.readStudent("nobody"));
+		assertEquals(s, c8.getEnrolledStudents()[0]);
+		assertEquals(3, c8.getEnrolledCount());
+		
+		List<Student> students = index.readAll();
+		assertEquals(10, students.size());
+		for (int i = 0; i < validStudents.length; i++) {
+			assertEquals(validStudents[i], students.get(i).toString());
+		}
+		assertSame(s, students.get(2));
+		assertEquals(7, c2.getEnrolledStudents().length);
+		assertEquals(7, c2.getEnrolledCount());
+		
+		assertEquals(0, StudentRecordIO.indexStudentRecords(invalidTestFile).size());
+		try {
+			StudentRecordIO.indexStudentRecords("test-files/no_such_file.txt");
+			fail("Missing file should throw FileNotFoundException");
+		} catch (FileNotFoundException e) {
+			//expected
+		}
+	}
+
+	/**
+	 * Test that reading reports progress up to the size of the file, and
+	 * that an interrupted read fails without leaving the students it read
+	 * in their courses.
+	 * @throws IOException if the test file cannot be read
+	 */
+	@Test
+	public void testReadStudentRecordsProgress() throws IOException {
+		try {
+			//Cancel once the first bytes have been read
+			StudentRecordIO.readStudentRecords(validTestFile, new ProgressListener() {
+				@Override
+				public void progress(long bytesRead, long totalBytes) {
+					Thread.currentThread().interrupt();
+				}
+			});
+			fail("Interrupted read should throw FileNotFoundException");
+		} catch (FileNotFoundException e) {
+			assertEquals(0, c1.getEnrolledCount());
+			assertEquals(0, c2.getEnrolledCount());
+		} finally {
+			Thread.interrupted();
+		}
+		
+		final long[] read = new long[2];
+		ProgressListener listener = new ProgressListener() {
+			@Override
+			public void progress(long bytesRead, long totalBytes) {
+				assertTrue(bytesRead > read[0]);
+				read[0] = bytesRead;
+				read[1] = totalBytes;
+			}
+		};
+		assertEquals(10, StudentRecordIO.readStudentRecords(validTestFile, listener).size());
+		assertEquals(new File(validTestFile).length(), read[0]);
+		assertEquals(read[0], read[1]);
+		assertEquals(7, c2.getEnrolledCount());
+	}
+
 	/**
 	 * Test invalid student record files.
 	 */
@@ -144,6 +320,85 @@ public class StudentRecordIOTest {
 		}
 	}
 
+	/**
+	 * Tests that each skipped line is reported with its number and reason.
+	 * @throws FileNotFoundException if the file cannot be read
+	 */
+	@Test
+	public void testReadStudentRecordsReport() throws FileNotFoundException {
+		LoadReport report = new LoadReport(invalidTestFile);
+		assertEquals(0, StudentRecordIO.readStudentRecords(invalidTestFile, null, report).size());
+		assertEquals(5, report.getSkippedCount());
+		String[] reasons = {"invalid email", "unknown course CSC999", "missing field",
+				"max credits is not a number", "max credits is not a number"};
+		for (int i = 0; i < reasons.length; i++) {
+			assertEquals(i + 1, report.getLineNumber(i));
+			assertEquals(reasons[i], report.getReason(i));
+		}
+		assertTrue(report.toString().startsWith(invalidTestFile + ":1: invalid email\n"));
+
+		report = new LoadReport(validTestFile);
+		assertEquals(10, StudentRecordIO.readStudentRecords(validTestFile, null, report).size());
+		assertEquals(0, report.getSkippedCount());
+	}
+
+	/**
+	 * Tests that streamed students match the file and are not added to the
+	 * course rosters.
+	 * @throws FileNotFoundException if the file cannot be read
+	 */
+	@Test
+	public void testStreamStudentRecords() throws FileNotFoundException {
+		try (Stream<Student> students = StudentRecordIO.streamStudentRecords(validTestFile)) {
+			Iterator<Student> it = students.iterator();
+			for (int i = 0; i < validStudents.length; i++) {
+				assertEquals(validStudents[i], it.next().toString());
+			}
+			assertFalse(it.hasNext());
+		}
+		assertEquals(0, c1.getEnrolledCount());
+		assertEquals(0, c2.getEnrolledCount());
+		try (Stream<Student> students = StudentRecordIO.streamStudentRecords(invalidTestFile)) {
+			assertEquals(0, students.count());
+		}
+		try {
+			StudentRecordIO.streamStudentRecords("test-files/no_such_file.txt");
+			fail("Missing file should throw FileNotFoundException");
+		} catch (FileNotFoundException e) {
+			//expected
+		}
+	}
+
+	/**
+	 * Tests that a gzip-compressed file is written for a .gz name and reads
+	 * the same as the plain file through every reader.
+	 * @throws IOException if the test file cannot be written
+	 */
+	@Test
+	public void testReadStudentRecordsCompressed() throws IOException {
+		List<Student> plain = StudentRecordIO.readStudentRecords(validTestFile);
+		manager.clearData();
+		Course[] courses = { c1, c2, c3, c4, c5, c6, c7, c8 };
+		for (int i = 0; i < courses.length; i++) {
+			manager.addCourse(new Course(courses[i].getName(), courses[i].getCredits(), courses[i].getCapacity()));
+		}
+		Path gz = FileSystems.getDefault().getPath("test-files", "actual_student_records.txt.gz");
+		StudentRecordIO.writeStudentRecords(gz.toString(), plain);
+		byte[] bytes = Files.readAllBytes(gz);
+		assertEquals((byte) 0x1f, bytes[0]);
+		assertEquals((byte) 0x8b, bytes[1]);
+
+		List<Student> students = StudentRecordIO.readStudentRecords(gz.toString());
+		assertEquals(10, students.size());
+		for (int i = 0; i < validStudents.length; i++) {
+			assertEquals(validStudents[i], students.get(i).toString());
+		}
+		assertEquals(10, StudentRecordIO.readStudentRecordsMapped(gz.toString()).size());
+		assertEquals(10, StudentRecordIO.readStudentRecordsParallel(gz.toString()).size());
+		assertNull(StudentRecordIO.indexStudentRecords(gz.toString()));
+		Files.deleteIfExists(gz);
+	}
+
 	/**
 	 * Tests writeStudentRecords()
 	 */
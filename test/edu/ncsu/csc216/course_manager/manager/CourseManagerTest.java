@@ -4,17 +4,28 @@ import static org.junit.Assert.*;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.PrintWriter;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Before;
 import org.junit.Test;
 
 import edu.ncsu.csc216.course_manager.courses.Course;
+import edu.ncsu.csc216.course_manager.io.CompactStore;
+import edu.ncsu.csc216.course_manager.io.LoadReport;
 import edu.ncsu.csc216.course_manager.manager.CourseManager;
 import edu.ncsu.csc216.course_manager.users.Faculty;
 import edu.ncsu.csc216.course_manager.users.Student;
@@ -198,6 +209,335 @@ public class CourseManagerTest {
 		assertEquals(c3, manager.getCourseByName("CSC316"));
 		assertEquals(c4, manager.getCourseByName("CSC326"));
 		assertNull(manager.getCourseByName("CSC226"));
+
+		//Removed courses can no longer be found by name
+		assertTrue(manager.removeCourse(c2));
+		assertNull(manager.getCourseByName("CSC216"));
+		assertEquals(c3, manager.getCourseByName("CSC316"));
+
+		//Clearing the data clears the name lookup
+		manager.clearData();
+		assertNull(manager.getCourseByName("CSC116"));
+	}
+
+	/**
+	 * Tests CourseManager.removeCourse().
+	 */
+	@Test
+	public void testRemoveCourse() {
+		manager.loadCourses("test-files/course_records.txt");
+		manager.loadStudents("test-files/student_records.txt");
+		manager.loadFaculty("test-files/faculty_records.txt");
+		
+		assertFalse(manager.removeCourse(null));
+		
+		Course c = manager.getCourseByName("CSC216");
+		Faculty f = c.getFaculty();
+		assertEquals(2, f.getCourses().length);
+		
+		manager.login("gstone", "pw");
+		Student s = (Student) manager.getCurrentUser();
+		assertEquals(4, s.getCourses().length);
+		assertEquals(12, s.getCurrentCredits());
+		
+		assertTrue(manager.removeCourse(c));
+		assertNull(manager.getCourseByName("CSC216"));
+		assertEquals(7, manager.listAllCourses().length);
+		
+		//Both sides of each enrollment are cleaned up
+		assertEquals(0, c.getEnrolledStudents().length);
+		assertEquals(3, s.getCourses().length);
+		assertEquals(9, s.getCurrentCredits());
+		assertNull(c.getFaculty());
+		assertEquals(1, f.getCourses().length);
+		
+		assertFalse(manager.removeCourse(c));
+		
+		//A course that is not in the system is left as it is
+		Course outside = new Course("CSC999", 3, 10);
+		Student lberg = (Student) manager.getUser("lberg");
+		assertTrue(lberg.addCourse(outside));
+		assertTrue(outside.enroll(lberg));
+		assertFalse(manager.removeCourse(outside));
+		assertTrue(outside.isEnrolled(lberg));
+		assertTrue(lberg.hasCourse(outside));
+		assertEquals(7, manager.listAllCourses().length);
+	}
+
+	/**
+	 * Tests saving and loading a snapshot of all courses and users.
+	 * @throws IOException if the snapshot cannot be deleted
+	 */
+	@Test
+	public void testSnapshot() throws IOException {
+		manager.loadCourses("test-files/course_records.txt");
+		manager.loadStudents("test-files/student_records.txt");
+		manager.loadFaculty("test-files/faculty_records.txt");
+		Course[] courses = manager.listAllCourses();
+		String[] rosters = new String[courses.length];
+		for (int i = 0; i < courses.length; i++) {
+			rosters[i] = courses[i].toString() + java.util.Arrays.toString(courses[i].getEnrolledStudents())
+					+ courses[i].getFaculty();
+		}
+		
+		String snapshot = "test-files/actual_snapshot.dat";
+		manager.saveSnapshot(snapshot);
+		manager.clearData();
+		manager.setStudentFileName("test-files/student_records.txt");
+		manager.loadSnapshot(snapshot);
+		Files.deleteIfExists(FileSystems.getDefault().getPath(snapshot));
+		
+		assertEquals("test-files/student_records.txt", manager.getStudentFileName());
+		courses = manager.listAllCourses();
+		assertEquals(rosters.length, courses.length);
+		for (int i = 0; i < courses.length; i++) {
+			assertEquals(rosters[i], courses[i].toString()
+					+ java.util.Arrays.toString(courses[i].getEnrolledStudents()) + courses[i].getFaculty());
+		}
+		assertTrue(manager.login("gstone", "pw"));
+		Student s = (Student) manager.getCurrentUser();
+		assertEquals(validStudents[7], s.toString());
+		assertEquals(12, s.getCurrentCredits());
+		manager.logout();
+		assertTrue(manager.login("lwalls", "pw"));
+		assertSame(manager.getCurrentUser(), manager.getCourseByName("CSC379").getFaculty());
+		manager.saveStudents();
+		checkFiles("test-files/expected_full_student_records.txt", "test-files/student_records.txt");
+		
+		try {
+			manager.loadSnapshot("test-files/course_records.txt");
+			fail("A record file is not a snapshot");
+		} catch (IllegalArgumentException e) {
+			assertEquals(courses.length, manager.listAllCourses().length);
+		}
+	}
+
+	/**
+	 * Tests recovering changes from a snapshot and a journal.
+	 * @throws IOException if the test files cannot be deleted
+	 */
+	@Test
+	public void testJournal() throws IOException {
+		String snapshot = "test-files/actual_snapshot.dat";
+		String journal = "test-files/actual_journal.txt";
+		Files.deleteIfExists(FileSystems.getDefault().getPath(journal));
+		manager.loadCourses("test-files/course_records.txt");
+		manager.loadStudents("test-files/student_records.txt");
+		manager.loadFaculty("test-files/faculty_records.txt");
+		manager.openJournal(journal);
+		manager.checkpoint(snapshot);
+		
+		assertTrue(manager.addCourse(new Course("CSC500", 3, 2)));
+		Course csc500 = manager.getCourseByName("CSC500");
+		manager.login("lberg", "pw");
+		assertTrue(manager.addUserToCourse(csc500));
+		assertTrue(manager.addUserToCourse(manager.getCourseByName("CSC226")));
+		assertTrue(manager.removeUserFromCourse(manager.getCourseByName("CSC226")));
+		manager.logout();
+		manager.login("awitt", "pw");
+		assertTrue(manager.removeUserFromCourse(manager.getCourseByName("CSC116")));
+		assertTrue(manager.addUserToCourse(csc500));
+		manager.logout();
+		assertTrue(manager.removeCourse(manager.getCourseByName("CSC379")));
+		String state = state();
+		
+		manager.clearData();
+		manager.recover(snapshot, journal);
+		assertEquals(state, state());
+		
+		//New changes are journaled after recovery, and a checkpoint empties the journal
+		manager.login("lberg", "pw");
+		assertTrue(manager.removeUserFromCourse(manager.getCourseByName("CSC500")));
+		state = state();
+		manager.closeJournal();
+		manager.clearData();
+		manager.recover(snapshot, journal);
+		assertEquals(state, state());
+		manager.checkpoint(snapshot);
+		manager.closeJournal();
+		assertEquals(0, new File(journal).length());
+		manager.clearData();
+		manager.recover(snapshot, journal);
+		assertEquals(state, state());
+		
+		manager.clearData();
+		Files.deleteIfExists(FileSystems.getDefault().getPath(snapshot));
+		Files.deleteIfExists(FileSystems.getDefault().getPath(journal));
+	}
+	
+	/**
+	 * Tests that a change that cannot be journaled is not made.
+	 */
+	@Test
+	public void testJournalFailure() {
+		//Every write to /dev/full fails; skip where there is none
+		if (!new File("/dev/full").canWrite()) {
+			return;
+		}
+		manager.loadCourses("test-files/course_records.txt");
+		manager.loadStudents("test-files/student_records.txt");
+		manager.loadFaculty("test-files/faculty_records.txt");
+		manager.openJournal("/dev/full");
+		
+		Student lberg = (Student) manager.getUser("lberg");
+		Course csc216 = manager.getCourseByName("CSC216");
+		try {
+			manager.enroll(lberg, csc216);
+			fail("Enrollment that cannot be journaled should throw");
+		} catch (IllegalArgumentException e) {
+			assertFalse(lberg.hasCourse(csc216));
+			assertFalse(csc216.isEnrolled(lberg));
+		}
+		Student gstone = (Student) manager.getUser("gstone");
+		try {
+			manager.drop(gstone, csc216);
+			fail("Drop that cannot be journaled should throw");
+		} catch (IllegalArgumentException e) {
+			assertTrue(gstone.hasCourse(csc216));
+			assertTrue(csc216.isEnrolled(gstone));
+		}
+		try {
+			manager.addCourse(new Course("CSC500", 3, 10));
+			fail("Course that cannot be journaled should throw");
+		} catch (IllegalArgumentException e) {
+			assertNull(manager.getCourseByName("CSC500"));
+			assertEquals(8, manager.listAllCourses().length);
+		}
+		try {
+			manager.removeCourse(manager.getCourseByName("CSC116"));
+			fail("Removal that cannot be journaled should throw");
+		} catch (IllegalArgumentException e) {
+			assertNotNull(manager.getCourseByName("CSC116"));
+			assertEquals("awitt", manager.getCourseByName("CSC116").getFaculty().getId());
+		}
+		manager.closeJournal();
+	}
+
+	/**
+	 * Tests that checkpoints taken while other threads enroll and drop lose
+	 * no change.
+	 * @throws IOException if the test files cannot be deleted
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	@Test
+	public void testConcurrentCheckpoint() throws IOException, InterruptedException {
+		String snapshot = "test-files/actual_snapshot.dat";
+		String journal = "test-files/actual_journal.txt";
+		Files.deleteIfExists(FileSystems.getDefault().getPath(journal));
+		final Course [] courses = new Course[4];
+		for (int i = 0; i < courses.length; i++) {
+			courses[i] = new Course("CSC" + (100 + i), 3, 20);
+			manager.addCourse(courses[i]);
+		}
+		final List<Student> students = new ArrayList<Student>();
+		for (int i = 0; i < 40; i++) {
+			Student s = new Student("first", "last", "id" + i, "first_last@ncsu.edu", "pw", 9);
+			students.add(s);
+			manager.addStudent(s);
+		}
+		manager.openJournal(journal);
+		manager.checkpoint(snapshot);
+		
+		ExecutorService pool = Executors.newFixedThreadPool(4);
+		for (final Student s : students) {
+			pool.execute(new Runnable() {
+				@Override
+				public void run() {
+					for (int round = 0; round < 20; round++) {
+						for (Course c : courses) {
+							if (manager.enroll(s, c) && round % 2 == 0) {
+								manager.drop(s, c);
+							}
+						}
+					}
+				}
+			});
+		}
+		pool.shutdown();
+		while (!pool.awaitTermination(5, TimeUnit.MILLISECONDS)) {
+			manager.checkpoint(snapshot);
+		}
+		String state = state();
+		manager.closeJournal();
+		manager.clearData();
+		manager.recover(snapshot, journal);
+		assertEquals(state, state());
+		
+		manager.clearData();
+		Files.deleteIfExists(FileSystems.getDefault().getPath(snapshot));
+		Files.deleteIfExists(FileSystems.getDefault().getPath(journal));
+	}
+	
+	/**
+	 * Tests that enrollments made by another thread while a journal is
+	 * replayed are journaled.
+	 * @throws IOException if the test files cannot be deleted
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	@Test
+	public void testConcurrentReplay() throws IOException, InterruptedException {
+		String snapshot = "test-files/actual_snapshot.dat";
+		String journal = "test-files/actual_replay_journal.txt";
+		Files.deleteIfExists(FileSystems.getDefault().getPath(journal));
+		Course churn = new Course("CSC100", 3, 20);
+		Course course = new Course("CSC101", 3, 100);
+		manager.addCourse(churn);
+		manager.addCourse(course);
+		Student first = new Student("first", "last", "churn", "first_last@ncsu.edu", "pw", 9);
+		manager.addStudent(first);
+		for (int i = 0; i < 50; i++) {
+			manager.addStudent(new Student("first", "last", "id" + i, "first_last@ncsu.edu", "pw", 9));
+		}
+		manager.openJournal(journal);
+		manager.checkpoint(snapshot);
+		for (int i = 0; i < 2000; i++) {
+			manager.enroll(first, churn);
+			manager.drop(first, churn);
+		}
+		manager.closeJournal();
+		
+		manager.clearData();
+		manager.loadSnapshot(snapshot);
+		manager.openJournal(journal);
+		final CountDownLatch started = new CountDownLatch(1);
+		Thread enroller = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				for (int i = 0; i < 50; i++) {
+					manager.enroll((Student) manager.getUser("id" + i), manager.getCourseByName("CSC101"));
+					started.countDown();
+					Thread.yield();
+				}
+			}
+		});
+		enroller.start();
+		started.await();
+		manager.replayJournal(journal);
+		enroller.join();
+		String state = state();
+		assertEquals(50, manager.getCourseByName("CSC101").getEnrolledCount());
+		manager.closeJournal();
+		manager.clearData();
+		manager.recover(snapshot, journal);
+		assertEquals(state, state());
+		
+		manager.clearData();
+		Files.deleteIfExists(FileSystems.getDefault().getPath(snapshot));
+		Files.deleteIfExists(FileSystems.getDefault().getPath(journal));
+	}
+	
+	/**
+	 * Returns the courses with their rosters and faculty, and each
+	 * student's courses.
+	 * @return state of the manager as a String
+	 */
+	private String state() {
+		StringBuilder state = new StringBuilder();
+		for (Course c : manager.listAllCourses()) {
+			state.append(c).append(java.util.Arrays.toString(c.getEnrolledStudents())).append(c.getFaculty())
+					.append('\n');
+		}
+		return state.toString();
 	}
 
 	/**
@@ -281,6 +621,222 @@ public class CourseManagerTest {
 		assertEquals(validStudents[9], students[2].toString());
 	}
 	
+	/**
+	 * Tests that loading students lazily reads only the students that are
+	 * looked up, and fills the courses the same as loadStudents().
+	 * @throws IOException if the test file cannot be read
+	 */
+	@Test
+	public void testLoadStudentsLazy() throws IOException {
+		manager.loadCourses("test-files/course_records.txt");
+		manager.loadStudents("test-files/student_records.txt");
+		Course[] courses = manager.listAllCourses();
+		int[] counts = new int[courses.length];
+		for (int i = 0; i < courses.length; i++) {
+			counts[i] = courses[i].getEnrolledCount();
+		}
+		
+		manager.clearData();
+		manager.loadCourses("test-files/course_records.txt");
+		manager.loadStudentsLazy("test-files/student_records.txt");
+		courses = manager.listAllCourses();
+		for (int i = 0; i < courses.length; i++) {
+			assertEquals(counts[i], courses[i].getEnrolledCount());
+			assertEquals(0, courses[i].getEnrolledStudents().length);
+		}
+		
+		assertTrue(manager.login("gstone", "pw"));
+		assertEquals(validStudents[7], manager.getCurrentUser().toString());
+		Course csc116 = manager.getCourseByName("CSC116");
+		assertEquals(manager.getCurrentUser(), csc116.getEnrolledStudents()[0]);
+		assertSame(manager.getCurrentUser(), manager.getUser("gstone"));
+		manager.logout();
+		
+		//The roster reads the students holding reserved seats
+		Course csc216 = manager.getCourseByName("CSC216");
+		assertTrue(csc216.getEnrolledStudents().length < csc216.getEnrolledCount());
+		Student [] roster = manager.getRoster(csc216);
+		assertEquals(csc216.getEnrolledCount(), roster.length);
+		assertEquals(csc116.getEnrolledCount(), manager.getRoster(csc116).length);
+		assertSame(roster[0], manager.getUser(roster[0].getId()));
+		assertTrue(manager.getUser("lberg") instanceof Student);
+		assertNull(manager.getUser("nobody"));
+		assertNull(manager.getUser(null));
+		
+		//Saving reads every student and keeps them in file order
+		manager.setStudentFileName("test-files/actual_student_records.txt");
+		manager.saveStudents();
+		checkFiles("test-files/expected_full_student_records.txt", "test-files/actual_student_records.txt");
+		for (int i = 0; i < courses.length; i++) {
+			assertEquals(counts[i], courses[i].getEnrolledCount());
+			assertEquals(counts[i], courses[i].getEnrolledStudents().length);
+		}
+		assertSame(csc116.getEnrolledStudents()[0], manager.getUser("gstone"));
+	}
+
+	/**
+	 * Tests loading the records into a CompactStore instead of objects.
+	 */
+	@Test
+	public void testLoadCompact() {
+		manager.loadCourses("test-files/course_records.txt");
+		assertNull(manager.getCompactStore());
+		CompactStore store = manager.loadCompact("test-files/course_records.txt",
+				"test-files/student_records.txt", "test-files/faculty_records.txt");
+		assertSame(store, manager.getCompactStore());
+		assertEquals(8, store.getCourseCount());
+		assertEquals(10, store.getStudentCount());
+		assertEquals(0, manager.listAllCourses().length);
+		assertNull(manager.getUser("zking"));
+		try {
+			manager.loadCompact("test-files/course_records.txt", "test-files/no_such_file.txt",
+					"test-files/faculty_records.txt");
+			fail();
+		} catch (IllegalArgumentException e) {
+			assertSame(store, manager.getCompactStore());
+		}
+		manager.clearData();
+		assertNull(manager.getCompactStore());
+	}
+
+	/**
+	 * Tests that rosters read at once from several threads put each lazily
+	 * loaded student in the list of students only once.
+	 * @throws IOException if the test files cannot be written or read
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	@Test
+	public void testConcurrentRosterLazy() throws IOException, InterruptedException {
+		String file = "test-files/actual_lazy_student_records.txt";
+		String saved = "test-files/actual_student_records.txt";
+		PrintWriter out = new PrintWriter(file);
+		for (int i = 0; i < 300; i++) {
+			out.println("first,last,s" + i + ",first_last@ncsu.edu,pw,9,CSC100");
+		}
+		out.close();
+		for (int round = 0; round < 5; round++) {
+			manager.clearData();
+			manager.addCourse(new Course("CSC100", 3, 1000));
+			manager.loadStudentsLazy(file);
+			final Course c = manager.getCourseByName("CSC100");
+			final CountDownLatch start = new CountDownLatch(1);
+			final AtomicInteger errors = new AtomicInteger();
+			ExecutorService pool = Executors.newFixedThreadPool(4);
+			for (int t = 0; t < 4; t++) {
+				pool.execute(new Runnable() {
+					@Override
+					public void run() {
+						try {
+							start.await();
+							if (manager.getRoster(c).length != 300) {
+								errors.incrementAndGet();
+							}
+						} catch (InterruptedException e) {
+							errors.incrementAndGet();
+						}
+					}
+				});
+			}
+			start.countDown();
+			pool.shutdown();
+			assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+			assertEquals(0, errors.get());
+			manager.setStudentFileName(saved);
+			manager.saveStudents();
+			assertEquals(300, Files.readAllLines(FileSystems.getDefault().getPath(saved)).size());
+		}
+		manager.clearData();
+		Files.deleteIfExists(FileSystems.getDefault().getPath(file));
+	}
+
+	/**
+	 * Tests that lines repeating an id take the same seats when loaded
+	 * lazily as when loaded at once.
+	 * @throws IOException if the test file cannot be written
+	 */
+	@Test
+	public void testLoadStudentsLazyRepeatedId() throws IOException {
+		String file = "test-files/actual_lazy_student_records.txt";
+		PrintWriter out = new PrintWriter(file);
+		out.println("first,last,dup,first_last@ncsu.edu,pw,9,CSC116");
+		out.println("first,last,dup,first_last@ncsu.edu,pw,9,CSC116");
+		out.println("first,last,dup,first_last@ncsu.edu,pw,9,CSC216,CSC116");
+		out.println("first,last,other,first_last@ncsu.edu,pw,9,CSC116,CSC216");
+		out.println("first,last,late,first_last@ncsu.edu,pw,9,CSC116,CSC216");
+		out.close();
+		String[] courses = {"CSC116", "CSC216"};
+		int[] counts = new int[courses.length];
+		String[] rosters = new String[courses.length];
+		manager.addCourse(new Course("CSC116", 3, 2));
+		manager.addCourse(new Course("CSC216", 3, 2));
+		manager.loadStudents(file);
+		for (int i = 0; i < courses.length; i++) {
+			Course c = manager.getCourseByName(courses[i]);
+			counts[i] = c.getEnrolledCount();
+			rosters[i] = Arrays.toString(c.getEnrolledStudents());
+		}
+		assertEquals(2, counts[0]);
+		
+		manager.clearData();
+		manager.addCourse(new Course("CSC116", 3, 2));
+		manager.addCourse(new Course("CSC216", 3, 2));
+		manager.loadStudentsLazy(file);
+		for (int i = 0; i < courses.length; i++) {
+			assertEquals(courses[i], counts[i], manager.getCourseByName(courses[i]).getEnrolledCount());
+		}
+		assertEquals("dup", manager.getUser("dup").getId());
+		assertEquals(1, ((Student) manager.getUser("dup")).getCourses().length);
+		for (int i = 0; i < courses.length; i++) {
+			Course c = manager.getCourseByName(courses[i]);
+			assertEquals(rosters[i], Arrays.toString(manager.getRoster(c)));
+			assertEquals(counts[i], c.getEnrolledCount());
+		}
+		assertTrue(manager.getUser("late") instanceof Student);
+		manager.clearData();
+		Files.deleteIfExists(FileSystems.getDefault().getPath(file));
+	}
+
+	/**
+	 * Tests that CourseManager.loadAll() loads the same data as loading the
+	 * three files one after another.
+	 */
+	@Test
+	public void testLoadAll() {
+		manager.loadCourses("test-files/course_records.txt");
+		manager.loadStudents("test-files/student_records.txt");
+		manager.loadFaculty("test-files/faculty_records.txt");
+		Course[] courses = manager.listAllCourses();
+		String[] rosters = new String[courses.length];
+		for (int i = 0; i < courses.length; i++) {
+			rosters[i] = Arrays.toString(courses[i].getEnrolledStudents()) + courses[i].getFaculty();
+		}
+
+		manager.clearData();
+		List<LoadReport> reports = manager.loadAll("test-files/course_records.txt",
+				"test-files/student_records.txt", "test-files/faculty_records.txt");
+		assertEquals(3, reports.size());
+		assertEquals("test-files/student_records.txt", reports.get(1).getFileName());
+		courses = manager.listAllCourses();
+		assertEquals(rosters.length, courses.length);
+		for (int i = 0; i < courses.length; i++) {
+			assertEquals(rosters[i], Arrays.toString(courses[i].getEnrolledStudents()) + courses[i].getFaculty());
+		}
+		assertTrue(manager.login("gstone", "pw"));
+		assertEquals(validStudents[7], manager.getCurrentUser().toString());
+		manager.logout();
+		assertFalse(manager.hasUnsavedChanges());
+
+		//Nothing is loaded if one of the files is missing
+		manager.clearData();
+		try {
+			manager.loadAll("test-files/course_records.txt", "test-files/no_such_file.txt",
+					"test-files/faculty_records.txt");
+			fail("Missing file should throw IllegalArgumentException");
+		} catch (IllegalArgumentException e) {
+			assertEquals(0, manager.listAllCourses().length);
+		}
+	}
+
 	/**
 	 * Tests CourseManager.loadFaculty().
 	 */
@@ -375,6 +931,44 @@ public class CourseManagerTest {
 		checkFiles("test-files/expected_full_student_records.txt", "test-files/student_records.txt");
 	}
 	
+	/**
+	 * Tests that saves skip records that have not changed, and that a save
+	 * replaces the file without leaving a temporary file behind.
+	 * @throws IOException if the test file cannot be written
+	 */
+	@Test
+	public void testSaveOnlyChanged() throws IOException {
+		manager.loadCourses("test-files/course_records.txt");
+		manager.loadStudents("test-files/student_records.txt");
+		
+		//Nothing has changed, so the file is not rewritten
+		Path studentPath = FileSystems.getDefault().getPath("test-files", "student_records.txt");
+		Files.write(studentPath, "changed on disk\n".getBytes());
+		manager.saveStudents();
+		manager.saveCourses();
+		assertEquals("changed on disk", Files.readAllLines(studentPath, java.nio.charset.Charset.defaultCharset()).get(0));
+		
+		manager.setSyncOnSave(true);
+		manager.login("lberg", "pw");
+		assertTrue(manager.addUserToCourse(manager.getCourseByName("CSC226")));
+		assertTrue(manager.removeUserFromCourse(manager.getCourseByName("CSC226")));
+		assertTrue(manager.hasUnsavedChanges());
+		manager.saveStudents();
+		checkFiles("test-files/expected_full_student_records.txt", "test-files/student_records.txt");
+		
+		File[] leftovers = new File("test-files").listFiles();
+		for (File f : leftovers) {
+			assertFalse(f.getName(), f.getName().endsWith(".tmp"));
+		}
+		
+		//Changing the file name means the new file must be written
+		manager.setStudentFileName("test-files/actual_student_records.txt");
+		Files.deleteIfExists(FileSystems.getDefault().getPath("test-files", "actual_student_records.txt"));
+		manager.saveStudents();
+		checkFiles("test-files/expected_full_student_records.txt", "test-files/actual_student_records.txt");
+		manager.setSyncOnSave(false);
+	}
+
 	/**
 	 * Tests CourseManager.saveFaculty(). 
 	 */
@@ -468,6 +1062,110 @@ public class CourseManagerTest {
 	}
 	
 
+	/**
+	 * Tests that login finds users added directly to the CourseManager.
+	 */
+	@Test
+	public void testLoginAddedUsers() {
+		String hashPW = validStudents[6].split(",")[4];
+		Student s = new Student("Lane", "Berg", "lberg", "sociis@non.org", hashPW, 14);
+		Faculty f = new Faculty("Kevyn", "Patel", "kpatel", "risus@pellentesque.ca", hashPW, 1);
+		Faculty sameId = new Faculty("Lane", "Berg", "lberg", "lberg@non.org", "other", 1);
+		
+		manager.addFaculty(sameId);
+		manager.addStudent(s);
+		manager.addFaculty(f);
+		
+		//A Student wins over a Faculty with the same id
+		assertTrue(manager.login("lberg", "pw"));
+		assertEquals(s, manager.getCurrentUser());
+		manager.logout();
+		
+		assertTrue(manager.login("kpatel", "pw"));
+		assertEquals(f, manager.getCurrentUser());
+		manager.logout();
+		
+		manager.clearData();
+		assertFalse(manager.login("kpatel", "pw"));
+	}
+
+	/**
+	 * Tests that addStudent() ignores a second Student with the same id.
+	 */
+	@Test
+	public void testAddStudentDuplicateId() {
+		String hashPW = validStudents[6].split(",")[4];
+		Student s = new Student("Lane", "Berg", "lberg", "sociis@non.org", hashPW, 14);
+		Student duplicate = new Student("Lane", "Berg", "lberg", "sociis@non.org", "other", 18);
+		
+		manager.addStudent(s);
+		manager.addStudent(duplicate);
+		manager.addStudent(s);
+		
+		assertFalse(manager.login("lberg", "other"));
+		assertTrue(manager.login("lberg", "pw"));
+		assertEquals(s, manager.getCurrentUser());
+	}
+
+	/**
+	 * Tests opening several sessions at once and using them.
+	 */
+	@Test
+	public void testSessions() {
+		manager.loadCourses("test-files/course_records.txt");
+		manager.loadStudents("test-files/student_records.txt");
+		manager.loadFaculty("test-files/faculty_records.txt");
+		
+		assertNull(manager.openSession("zking", "pw1"));
+		assertNull(manager.openSession("nobody", "pw"));
+		
+		String student = manager.openSession("lberg", "pw");
+		String faculty = manager.openSession("kpatel", "pw");
+		assertNotNull(student);
+		assertNotNull(faculty);
+		assertFalse(student.equals(faculty));
+		assertNull(manager.getCurrentUser());
+		
+		assertEquals("lberg", manager.getSessionUser(student).getId());
+		assertTrue(manager.addUserToCourse(student, manager.getCourseByName("CSC216")));
+		assertEquals(1, manager.listUserCourses(student).length);
+		assertFalse(manager.addUserToCourse(faculty, manager.getCourseByName("CSC316")));
+		assertTrue(manager.removeUserFromCourse(student, manager.getCourseByName("CSC216")));
+		assertEquals(0, manager.listUserCourses(student).length);
+		
+		manager.closeSession(student);
+		try {
+			manager.listUserCourses(student);
+			fail("Closed session should not be usable");
+		} catch (IllegalArgumentException e) {
+			assertEquals("User is not logged in.", e.getMessage());
+		}
+		assertEquals("kpatel", manager.getSessionUser(faculty).getId());
+		
+		//Idle sessions expire
+		manager.setSessionTimeout(0);
+		try {
+			manager.getSessionUser(faculty);
+			fail("Expired session should not be usable");
+		} catch (IllegalArgumentException e) {
+			assertEquals("User is not logged in.", e.getMessage());
+		}
+		manager.setSessionTimeout(CourseManager.DEFAULT_SESSION_TIMEOUT);
+		try {
+			manager.getSessionUser(faculty);
+			fail("Expired session should have been closed");
+		} catch (IllegalArgumentException e) {
+			assertEquals("User is not logged in.", e.getMessage());
+		}
+		
+		//Clearing the data restores the default timeout
+		manager.setSessionTimeout(0);
+		manager.clearData();
+		manager.loadStudents("test-files/student_records.txt");
+		student = manager.openSession("lberg", "pw");
+		assertEquals("lberg", manager.getSessionUser(student).getId());
+	}
+
 	/**
 	 * Tests the logout method.
 	 */
@@ -600,6 +1298,199 @@ public class CourseManagerTest {
         
 	}
 	
+	/**
+	 * Tests enroll() and drop() from many threads at once.
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	@Test
+	public void testConcurrentEnroll() throws InterruptedException {
+		final Course [] courses = new Course[6];
+		for (int i = 0; i < courses.length; i++) {
+			courses[i] = new Course("CSC" + (100 + i), 3, 25);
+			manager.addCourse(courses[i]);
+		}
+		final List<Student> students = new ArrayList<Student>();
+		for (int i = 0; i < 100; i++) {
+			Student s = new Student("first", "last", "id" + i, "first_last@ncsu.edu", "pw", 9);
+			students.add(s);
+			manager.addStudent(s);
+		}
+		
+		//Every student tries every course, and drops and re-adds some
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		for (final Student s : students) {
+			pool.execute(new Runnable() {
+				@Override
+				public void run() {
+					for (Course c : courses) {
+						if (manager.enroll(s, c) && s.getId().endsWith("7")) {
+							manager.drop(s, c);
+							manager.enroll(s, c);
+						}
+					}
+				}
+			});
+		}
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+		
+		int enrollments = 0;
+		for (Course c : courses) {
+			Student [] roster = c.getEnrolledStudents();
+			assertEquals(25, roster.length);
+			for (Student s : roster) {
+				assertTrue(contains(s.getCourses(), c));
+			}
+			enrollments += roster.length;
+		}
+		int studentCourses = 0;
+		for (Student s : students) {
+			assertTrue(s.getCurrentCredits() <= s.getMaxCredits());
+			studentCourses += s.getCourses().length;
+		}
+		assertEquals(enrollments, studentCourses);
+	}
+	
+	/**
+	 * Tests adding and removing courses from many threads while others
+	 * look them up.
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	@Test
+	public void testConcurrentCourseChanges() throws InterruptedException {
+		final AtomicInteger errors = new AtomicInteger();
+		ExecutorService pool = Executors.newFixedThreadPool(8);
+		for (int t = 0; t < 8; t++) {
+			final int thread = t;
+			pool.execute(new Runnable() {
+				@Override
+				public void run() {
+					for (int i = 0; i < 500; i++) {
+						String name = "CSC" + (thread * 1000 + i);
+						Course c = new Course(name, 3, 10);
+						if (!manager.addCourse(c) || manager.getCourseByName(name) != c) {
+							errors.incrementAndGet();
+						}
+						if (i % 2 == 0 && (!manager.removeCourse(c) || manager.getCourseByName(name) != null)) {
+							errors.incrementAndGet();
+						}
+						manager.listAllCourses();
+					}
+				}
+			});
+		}
+		pool.shutdown();
+		assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+		assertEquals(0, errors.get());
+		
+		Course [] all = manager.listAllCourses();
+		assertEquals(8 * 250, all.length);
+		assertEquals(all.length, manager.getCourseIndex().size());
+		for (Course c : all) {
+			assertSame(c, manager.getCourseByName(c.getName()));
+		}
+	}
+	
+	/**
+	 * Returns true if the course is in the array.
+	 * @param courses array to search
+	 * @param c course to find
+	 * @return true if found
+	 */
+	private boolean contains(Course [] courses, Course c) {
+		for (Course d : courses) {
+			if (d == c) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Tests enrollBatch().
+	 */
+	@Test
+	public void testEnrollBatch() {
+		manager.loadCourses("test-files/course_records.txt");
+		manager.loadStudents("test-files/student_records.txt");
+		
+		List<EnrollmentRequest> requests = new ArrayList<EnrollmentRequest>();
+		requests.add(new EnrollmentRequest("lberg", "CSC316"));
+		requests.add(new EnrollmentRequest("efrost", "CSC316"));
+		requests.add(new EnrollmentRequest("nobody", "CSC116"));
+		requests.add(new EnrollmentRequest("lberg", "CSC999"));
+		requests.add(new EnrollmentRequest("lberg", "CSC246"));
+		requests.add(new EnrollmentRequest("lberg", "CSC116"));
+		requests.add(new EnrollmentRequest("lberg", "CSC116"));
+		requests.add(new EnrollmentRequest("zking", "CSC116"));
+		requests.add(new EnrollmentRequest("dnolan", "CSC116"));
+		
+		boolean [] results = manager.enrollBatch(requests);
+		boolean [] expected = {true, false, false, false, false, true, false, true, false};
+		assertEquals(expected.length, results.length);
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals(requests.get(i).toString(), expected[i], results[i]);
+		}
+		
+		Student [] roster = manager.getCourseByName("CSC116").getEnrolledStudents();
+		assertEquals(7, roster.length);
+		assertEquals("lberg", roster[5].getId());
+		assertEquals("zking", roster[6].getId());
+		assertEquals(1, manager.getCourseByName("CSC316").getEnrolledStudents().length);
+		assertEquals(0, manager.enrollBatch(new ArrayList<EnrollmentRequest>()).length);
+	}
+
+	/**
+	 * Tests that batches for two courses run at once with lazily loaded
+	 * students do not deadlock when reading a student takes a seat in the
+	 * other batch's course.
+	 * @throws IOException if the test file cannot be written
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	@Test
+	public void testConcurrentEnrollBatchLazy() throws IOException, InterruptedException {
+		String file = "test-files/actual_lazy_student_records.txt";
+		for (int round = 0; round < 5; round++) {
+			manager.clearData();
+			manager.addCourse(new Course("CSC100", 3, 1000));
+			manager.addCourse(new Course("CSC101", 3, 1000));
+			PrintWriter out = new PrintWriter(file);
+			final List<EnrollmentRequest> toFirst = new ArrayList<EnrollmentRequest>();
+			final List<EnrollmentRequest> toSecond = new ArrayList<EnrollmentRequest>();
+			for (int i = 0; i < 200; i++) {
+				out.println("first,last,a" + i + ",first_last@ncsu.edu,pw,9,CSC101");
+				out.println("first,last,b" + i + ",first_last@ncsu.edu,pw,9,CSC100");
+				toFirst.add(new EnrollmentRequest("a" + i, "CSC100"));
+				toSecond.add(new EnrollmentRequest("b" + i, "CSC101"));
+			}
+			out.close();
+			manager.loadStudentsLazy(file);
+			Thread first = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					manager.enrollBatch(toFirst);
+				}
+			});
+			Thread second = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					manager.enrollBatch(toSecond);
+				}
+			});
+			first.setDaemon(true);
+			second.setDaemon(true);
+			first.start();
+			second.start();
+			first.join(10000);
+			second.join(10000);
+			assertFalse("enrollBatch deadlocked", first.isAlive() || second.isAlive());
+			assertEquals(400, manager.getCourseByName("CSC100").getEnrolledCount());
+			assertEquals(400, manager.getCourseByName("CSC101").getEnrolledCount());
+		}
+		manager.clearData();
+		Files.deleteIfExists(FileSystems.getDefault().getPath(file));
+	}
+
 	/**
 	 * Tests removeUserFromCourse().
 	 */
@@ -0,0 +1,102 @@
+package edu.ncsu.csc216.course_manager.manager;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.ncsu.csc216.course_manager.users.Student;
+
+/**
+ * Measures login throughput.  Compares hashing with a new MessageDigest
+ * and String per attempt against PasswordVerifier, then measures
+ * openSession() from several threads.  Run with:
+ * java edu.ncsu.csc216.course_manager.manager.LoginBenchmark [users] [seconds]
+ * @author sarahweaver
+ */
+public class LoginBenchmark {
+	
+	/** Hashing algorithm */
+	private static final String HASH_ALGORITHM = "SHA-256";
+
+	/**
+	 * Runs the benchmark.
+	 * @param args number of users and seconds per measurement
+	 * @throws Exception if the benchmark fails
+	 */
+	public static void main(String[] args) throws Exception {
+		final int users = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		final long seconds = args.length > 1 ? Long.parseLong(args[1]) : 3;
+		
+		final CourseManager manager = CourseManager.getInstance();
+		manager.clearData();
+		final PasswordVerifier verifier = new PasswordVerifier();
+		final String [] stored = new String[users];
+		for (int i = 0; i < users; i++) {
+			stored[i] = verifier.hash("pw" + i);
+			manager.addStudent(new Student("first", "last", "id" + i, "first_last@ncsu.edu", stored[i]));
+		}
+		
+		//Warm up and measure both hashing paths on one thread
+		for (int round = 0; round < 2; round++) {
+			long legacy = 0;
+			long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+			while (System.nanoTime() < end) {
+				int i = (int) (legacy % users);
+				legacyVerify("pw" + i, stored[i]);
+				legacy++;
+			}
+			long reused = 0;
+			end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+			while (System.nanoTime() < end) {
+				int i = (int) (reused % users);
+				verifier.verify("pw" + i, stored[i]);
+				reused++;
+			}
+			if (round == 1) {
+				System.out.println("legacy verify:   " + legacy / seconds + " ops/s");
+				System.out.println("PasswordVerifier: " + reused / seconds + " ops/s");
+			}
+		}
+		
+		//Session logins from every core
+		int threads = Runtime.getRuntime().availableProcessors();
+		final AtomicLong logins = new AtomicLong();
+		final long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+		ExecutorService pool = Executors.newFixedThreadPool(threads);
+		for (int t = 0; t < threads; t++) {
+			final int offset = t;
+			pool.execute(new Runnable() {
+				@Override
+				public void run() {
+					long count = 0;
+					while (System.nanoTime() < end) {
+						int i = (int) ((count * 31 + offset) % users);
+						manager.closeSession(manager.openSession("id" + i, "pw" + i));
+						count++;
+					}
+					logins.addAndGet(count);
+				}
+			});
+		}
+		pool.shutdown();
+		pool.awaitTermination(seconds + 60, TimeUnit.SECONDS);
+		System.out.println("openSession, " + threads + " threads: " + logins.get() / seconds + " ops/s");
+		manager.clearData();
+	}
+	
+	/**
+	 * Checks a password the way login did before PasswordVerifier.
+	 * @param password plaintext password
+	 * @param stored stored hash
+	 * @return true if the password matches
+	 * @throws NoSuchAlgorithmException if SHA-256 is unavailable
+	 */
+	private static boolean legacyVerify(String password, String stored) throws NoSuchAlgorithmException {
+		MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+		digest.update(password.getBytes());
+		return stored.equals(new String(digest.digest()));
+	}
+}
@@ -0,0 +1,65 @@
+package edu.ncsu.csc216.course_manager.manager;
+
+import static org.junit.Assert.*;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.junit.Test;
+
+/**
+ * Tests the PasswordVerifier class.
+ * @author sarahweaver
+ */
+public class PasswordVerifierTest {
+	
+	/** Hashing algorithm */
+	private static final String HASH_ALGORITHM = "SHA-256";
+	
+	/** Passwords to hash */
+	private final String [] passwords = {"pw", "pw1", "correct horse battery staple", "p\u00e4ssw\u00f6rd\u2603",
+			"0123456789012345678901234567890123456789012345678901234567890123456789012345678901234567890123456789"};
+
+	/**
+	 * Hashes the password the way the record files were written.
+	 * @param password plaintext password
+	 * @return hashed password
+	 */
+	private String legacyHash(String password) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+			digest.update(password.getBytes());
+			return new String(digest.digest());
+		} catch (NoSuchAlgorithmException e) {
+			fail("Unable to create hash");
+			return null;
+		}
+	}
+
+	/**
+	 * Tests that hash() matches the stored password format.
+	 */
+	@Test
+	public void testHash() {
+		PasswordVerifier verifier = new PasswordVerifier();
+		for (String password : passwords) {
+			assertEquals(legacyHash(password), verifier.hash(password));
+		}
+	}
+
+	/**
+	 * Tests verify() with correct and incorrect passwords.
+	 */
+	@Test
+	public void testVerify() {
+		PasswordVerifier verifier = new PasswordVerifier();
+		for (String password : passwords) {
+			String stored = legacyHash(password);
+			assertTrue(verifier.verify(password, stored));
+			assertFalse(verifier.verify(password + "x", stored));
+			assertFalse(verifier.verify(password, stored.substring(1)));
+			assertFalse(verifier.verify(password, stored + "x"));
+		}
+		assertFalse(verifier.verify("pw", "pw"));
+	}
+}
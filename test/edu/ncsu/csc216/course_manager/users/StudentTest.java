@@ -203,6 +203,21 @@ public class StudentTest {
 		compareCourses(expCourses4, s.getCourses());
 	}
 
+	/**
+	 * Tests that removing a course by an equal Course object subtracts
+	 * the credits of the course the student was enrolled in.
+	 */
+	@Test
+	public void testRemoveCourseEqualCourse() {
+		s.addCourse(new Course("CSC379", 1, 10));
+		assertEquals(1, s.getCurrentCredits());
+		
+		assertTrue(s.removeCourse(new Course("CSC379", 4, 10)));
+		assertEquals(0, s.getCurrentCredits());
+		assertFalse(s.removeCourse(new Course("CSC379", 1, 10)));
+		assertFalse(s.removeCourse(null));
+	}
+
 	/**
 	 * Tests setting the max credits.  Also tests getting the credits.
 	 */